@@ -0,0 +1,107 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The operations EngineBenchmark times, timed by JMH instead: searches at several depths (with no transposition table,
+ * and with a cleared one), make-and-undo along a fixed line of play, and move generation, each over all eight of
+ * EngineBenchmark's boards, for both the GameState and the BitboardState. Run it with -prof gc to see the bytes
+ * allocated per operation.
+ * *
+ * JMH won't generate benchmarks in the default package, and nothing outside it can name the game's classes, so each
+ * operation is set up by EngineBenchmark.operation(), found by reflection, and called here as a LongSupplier.
+ * *
+ * Usage: gradle :bench:jmh --args="EngineJmhBenchmark"   (add JMH options as usual, e.g. -p backend=GameState)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EngineJmhBenchmark
+{
+    /**
+     * the searches, for each board type and depth.
+     */
+    @State(Scope.Thread)
+    public static class Searches
+    {
+        @Param({"GameState", "BitboardState"})
+        public String backend;
+
+        @Param({"5", "8", "11"})
+        public int depth;
+
+        LongSupplier search, searchWithTable;
+
+        @Setup
+        public void setUp() throws ReflectiveOperationException
+        {
+            search = operation("search", backend, depth);
+            searchWithTable = operation("searchWithTable", backend, depth);
+        }
+    }
+
+    /**
+     * making, undoing and generating moves, for each board type.
+     */
+    @State(Scope.Thread)
+    public static class Moves
+    {
+        @Param({"GameState", "BitboardState"})
+        public String backend;
+
+        LongSupplier makeUndo, moveGen;
+
+        @Setup
+        public void setUp() throws ReflectiveOperationException
+        {
+            makeUndo = operation("makeUndo", backend, 0);
+            moveGen = operation("moveGen", backend, 0);
+        }
+    }
+
+    private static LongSupplier operation(String name, String backend, int depth) throws ReflectiveOperationException
+    {
+        return (LongSupplier) Class.forName("EngineBenchmark")
+                .getMethod("operation", String.class, String.class, int.class)
+                .invoke(null, name, backend, depth);
+    }
+
+    @Benchmark
+    public long search(Searches searches)
+    {
+        return searches.search.getAsLong();
+    }
+
+    @Benchmark
+    public long searchWithTable(Searches searches)
+    {
+        return searches.searchWithTable.getAsLong();
+    }
+
+    @Benchmark
+    public long makeUndo(Moves moves)
+    {
+        return moves.makeUndo.getAsLong();
+    }
+
+    @Benchmark
+    public long moveGen(Moves moves)
+    {
+        return moves.moveGen.getAsLong();
+    }
+}
@@ -0,0 +1,108 @@
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A small timing harness in the style of JMH: each benchmark is run for a few warm-up iterations (so the JIT has
+ * compiled it) and then a few measured iterations, each lasting a fixed amount of wall-clock time. We report the mean
+ * and spread of the operations per second across the measured iterations, plus how many bytes each operation
+ * allocated on the benchmark thread (the same number JMH's "gc" profiler reports as gc.alloc.rate.norm).
+ * *
+ * Results are printed as CSV so they can be compared from run to run.
+ */
+public class BenchmarkHarness
+{
+    /**
+     * One benchmarked operation. run() should do some work and return a number that depends on it, so the JIT can't
+     * throw the work away.
+     */
+    public interface Operation
+    {
+        long run();
+    }
+
+    private final int warmupIterations, measuredIterations;
+    private final long iterationMillis;
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private long sink; // everything run() returns is added in here, and printed at the end.
+
+    /**
+     * @param warmupIterations - how many iterations to throw away first
+     * @param measuredIterations - how many iterations to report on
+     * @param iterationMillis - how long each iteration lasts
+     */
+    public BenchmarkHarness(int warmupIterations, int measuredIterations, long iterationMillis)
+    {
+        this.warmupIterations = warmupIterations;
+        this.measuredIterations = measuredIterations;
+        this.iterationMillis = iterationMillis;
+    }
+
+    public static void printHeader()
+    {
+        System.out.println("benchmark,param,ops/s,error(+/-),unit,bytes/op");
+    }
+
+    /**
+     * times an operation and prints a line of results.
+     * @param name - what is being measured
+     * @param param - which variant (board, depth...) is being measured
+     * @param unitsPerOp - how many "units" each call to run() does (e.g. nodes searched), so the rate can be reported
+     *                   per unit. Use 1 for plain calls.
+     * @param unit - what the units are called
+     * @param operation - the thing to time
+     */
+    public void measure(String name, String param, long unitsPerOp, String unit, Operation operation)
+    {
+        for (int i = 0; i < warmupIterations; i++)
+            iterate(operation);
+        List<double[]> results = new ArrayList<>();
+        for (int i = 0; i < measuredIterations; i++)
+            results.add(iterate(operation));
+
+        double sum = 0, sumOfSquares = 0, bytes = 0;
+        for (double[] result : results)
+        {
+            double rate = result[0] * unitsPerOp;
+            sum += rate;
+            sumOfSquares += rate * rate;
+            bytes += result[1];
+        }
+        double mean = sum / results.size();
+        double stdDev = Math.sqrt(Math.max(0, sumOfSquares / results.size() - mean * mean));
+        System.out.printf("%s,%s,%.1f,%.1f,%s/s,%.2f%n", name, param, mean, stdDev, unit, bytes / results.size());
+    }
+
+    /**
+     * @return - the combined results of every operation, to print when we're done (see the class comment).
+     */
+    public long getSink()
+    {
+        return sink;
+    }
+
+    /**
+     * calls the operation repeatedly for one iteration's worth of time.
+     * @param operation - the thing to time
+     * @return - {calls per second, bytes allocated per call}
+     */
+    private double[] iterate(Operation operation)
+    {
+        long threadId = Thread.currentThread().threadId();
+        long bytesBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        long end = start + iterationMillis * 1_000_000;
+        long calls = 0;
+        long now;
+        do
+        {
+            sink += operation.run();
+            calls++;
+            now = System.nanoTime();
+        }
+        while (now < end);
+        long bytes = threads.getThreadAllocatedBytes(threadId) - bytesBefore;
+        return new double[]{calls * 1e9 / (now - start), (double) bytes / calls};
+    }
+}
@@ -0,0 +1,193 @@
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.LongSupplier;
+
+/**
+ * Benchmarks for the search engine, run on a fixed set of seeded boards so that every run measures the same work:
+ *  - search:   nodes per second for MiniMaxEngine at several depths (transposition table off, so every call does the
+ *              same number of nodes), plus one run with a freshly cleared table
+ *  - makeUndo: make-and-undo pairs per second along a fixed line of play (this is where the per-turn decay is paid)
+ *  - moveGen:  generateMoves() calls per second
+ * for both the int[][] GameState and the BitboardState. The last column is bytes allocated per operation; the search
+ * and make/undo paths are meant to stay at zero.
+ * *
+ * The same operations are timed by JMH in bench/jmh (see bench/build.gradle); this class times them with the small
+ * BenchmarkHarness, for when JMH isn't to hand.
+ * *
+ * Usage: java EngineBenchmark [quick]
+ *     "quick" does shorter iterations, for a sanity check rather than numbers worth comparing.
+ */
+public class EngineBenchmark
+{
+    private static final long[] SEEDS = {1, 2, 3, 4, 5, 6, 7, 8};
+    private static final int[] DEPTHS = {5, 8, 11};
+    private static final int LINE_LENGTH = 20; // moves in each board's fixed line of play for makeUndo
+
+    public static void main(String[] args)
+    {
+        boolean quick = args.length > 0 && args[0].equals("quick");
+        BenchmarkHarness harness = quick ? new BenchmarkHarness(1, 2, 100) : new BenchmarkHarness(5, 5, 1000);
+        BenchmarkHarness.printHeader();
+        for (String backend : new String[]{"GameState", "BitboardState"})
+        {
+            Board[] boards = makeBoards(backend);
+            benchmarkSearch(harness, backend, boards);
+            benchmarkMakeUndo(harness, backend, boards);
+            benchmarkMoveGeneration(harness, backend, boards);
+        }
+        System.out.println("# sink " + harness.getSink());
+    }
+
+    /**
+     * @param backend - "GameState" or "BitboardState"
+     * @return - one board per seed, with the human's first move (the biggest gobble) already made, so that it is the
+     * computer's turn.
+     */
+    private static Board[] makeBoards(String backend)
+    {
+        Board[] boards = new Board[SEEDS.length];
+        for (int i = 0; i < SEEDS.length; i++)
+        {
+            GameState state = new GameState(SEEDS[i]);
+            boards[i] = backend.equals("BitboardState") ? new BitboardState(state) : state;
+            int[] moves = new int[4];
+            boards[i].generateMoves(GameState.HUMAN, moves, 0);
+            boards[i].makeMove(moves[0]);
+        }
+        return boards;
+    }
+
+    /**
+     * one of the operations this class times, set up on its own boards, for something else to time (JMH, which can't
+     * see the default package, gets them from here by reflection).
+     * @param name - "search" (with no transposition table), "searchWithTable" (cleared each time), "makeUndo" or
+     *             "moveGen"
+     * @param backend - "GameState" or "BitboardState"
+     * @param depth - how many steps the searches look ahead
+     * @return - the operation; each call does it once over every board, and returns a number that depends on it.
+     */
+    public static LongSupplier operation(String name, String backend, int depth)
+    {
+        Board[] boards = makeBoards(backend);
+        return switch (name)
+        {
+            case "search" -> search(boards, depth, null);
+            case "searchWithTable" -> search(boards, depth, new TranspositionTable(1));
+            case "makeUndo" -> makeUndo(boards, makeLines(boards));
+            case "moveGen" -> moveGen(boards);
+            default -> throw new IllegalArgumentException("Hey, there's no benchmark called \"" + name + "\".");
+        };
+    }
+
+    private static void benchmarkSearch(BenchmarkHarness harness, String backend, Board[] boards)
+    {
+        for (int depth : DEPTHS)
+        {
+            LongSupplier search = search(boards, depth, null);
+            long nodes = search.getAsLong();
+            harness.measure("search", backend + " steps=" + depth, nodes, "nodes", search::getAsLong);
+        }
+
+        // with a table the node count depends on what is already in it, so count searches rather than nodes.
+        int depth = DEPTHS[DEPTHS.length-1];
+        harness.measure("searchWithTable", backend + " steps=" + depth, 1, "searches",
+                search(boards, depth, new TranspositionTable(1))::getAsLong);
+    }
+
+    /**
+     * @param table - the table to search with, cleared before each search of all the boards, or null for none
+     * @return - an operation that searches every board, and returns the total number of nodes visited.
+     */
+    private static LongSupplier search(Board[] boards, int depth, TranspositionTable table)
+    {
+        MiniMaxEngine engine = new MiniMaxEngine(depth);
+        engine.setTranspositionTable(table);
+        engine.setSeed(0);
+        return () ->
+        {
+            if (table != null)
+                table.clear();
+            long nodes = 0;
+            for (Board board : boards)
+            {
+                engine.bestMoveForComputer(board);
+                nodes += engine.getNodesVisited();
+            }
+            return nodes;
+        };
+    }
+
+    private static void benchmarkMakeUndo(BenchmarkHarness harness, String backend, Board[] boards)
+    {
+        int[][] lines = makeLines(boards);
+        long pairs = 0;
+        for (int[] line : lines)
+            pairs += line.length;
+        harness.measure("makeUndo", backend, pairs, "make+undo", makeUndo(boards, lines)::getAsLong);
+    }
+
+    /**
+     * @return - a fixed, seeded line of legal moves from each board (which are left as they were).
+     */
+    private static int[][] makeLines(Board[] boards)
+    {
+        int[][] lines = new int[boards.length][];
+        Random random = new Random(0);
+        for (int b = 0; b < boards.length; b++)
+        {
+            int[] line = new int[LINE_LENGTH];
+            int[] moves = new int[4];
+            int length = 0;
+            int player = GameState.COMPUTER;
+            while (length < LINE_LENGTH && !boards[b].isGameOver())
+            {
+                int numMoves = boards[b].generateMoves(player, moves, 0);
+                line[length] = moves[random.nextInt(numMoves)];
+                boards[b].makeMove(line[length++]);
+                player = 1 - player;
+            }
+            for (int i = length - 1; i >= 0; i--)
+                boards[b].undoMove(line[i]);
+            lines[b] = Arrays.copyOf(line, length);
+        }
+        return lines;
+    }
+
+    private static LongSupplier makeUndo(Board[] boards, int[][] lines)
+    {
+        return () ->
+        {
+            long check = 0;
+            for (int b = 0; b < boards.length; b++)
+            {
+                int[] line = lines[b];
+                for (int move : line)
+                    boards[b].makeMove(move);
+                check += boards[b].getZobristKey();
+                for (int i = line.length - 1; i >= 0; i--)
+                    boards[b].undoMove(line[i]);
+            }
+            return check;
+        };
+    }
+
+    private static void benchmarkMoveGeneration(BenchmarkHarness harness, String backend, Board[] boards)
+    {
+        harness.measure("moveGen", backend, 2L * boards.length, "calls", moveGen(boards)::getAsLong);
+    }
+
+    private static LongSupplier moveGen(Board[] boards)
+    {
+        int[] moves = new int[4];
+        return () ->
+        {
+            long count = 0;
+            for (Board board : boards)
+            {
+                count += board.generateMoves(GameState.HUMAN, moves, 0);
+                count += board.generateMoves(GameState.COMPUTER, moves, 0);
+            }
+            return count + moves[0];
+        };
+    }
+}
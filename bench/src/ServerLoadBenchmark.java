@@ -0,0 +1,270 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Finds out how many games at once a GameServer can serve before the computer's moves get too slow. For each number of
+ * games in turn, it plays that many games against the server at the same time (each on its own connection and virtual
+ * thread, starting a new game whenever one ends) for a fixed time, and times every COMPUTER command from when it is
+ * sent until the answer arrives - so the time a search spends waiting for a pool thread is counted, as a player would
+ * count it. The human's moves are random, made after an optional pause to stand in for a person thinking.
+ * *
+ * Results are printed as CSV, one line per number of games, with the moves per second served and percentiles of the
+ * computer's move latency; it stops after the first number of games whose 99th percentile misses the target, and says
+ * how many games met it.
+ * *
+ * Usage: java ServerLoadBenchmark [games=1,2,4,8,16,32,64] [seconds=10] [p99=100] [think=0] [port=7878]
+ *                                 [engine=time:50,eval] [threads=8]
+ *     port= uses a GameServer already running on localhost; without it, one is started in this JVM with the given
+ *     engine set-up and search pool size (see GameServer). think= is how long the human pauses before each move, in
+ *     milliseconds, on average.
+ */
+public class ServerLoadBenchmark
+{
+    private static final int WARMUP_SECONDS = 2;
+
+    public static void main(String[] args) throws Exception
+    {
+        int[] numGamesToTry = {1, 2, 4, 8, 16, 32, 64};
+        int seconds = 10;
+        double targetMillis = 100;
+        long thinkMillis = 0;
+        int port = -1;
+        String engineSpec = "time:" + GamePanel.COMPUTER_THINKING_MILLIS + ",eval";
+        int numThreads = Runtime.getRuntime().availableProcessors();
+        for (String arg : args)
+        {
+            String value = arg.substring(arg.indexOf('=') + 1);
+            if (arg.startsWith("games="))
+                numGamesToTry = Arrays.stream(value.split(",")).mapToInt(Integer::parseInt).toArray();
+            else if (arg.startsWith("seconds="))
+                seconds = Integer.parseInt(value);
+            else if (arg.startsWith("p99="))
+                targetMillis = Double.parseDouble(value);
+            else if (arg.startsWith("think="))
+                thinkMillis = Long.parseLong(value);
+            else if (arg.startsWith("port="))
+                port = Integer.parseInt(value);
+            else if (arg.startsWith("engine="))
+                engineSpec = value;
+            else if (arg.startsWith("threads="))
+                numThreads = Integer.parseInt(value);
+            else
+                throw new IllegalArgumentException("Hey, I don't know what \"" + arg + "\" means.");
+        }
+
+        GameServer server = null;
+        if (port < 0)
+        {
+            server = new GameServer(0, engineSpec, numThreads);
+            server.start();
+            port = server.getPort();
+            System.out.println("# started a GameServer: engine " + engineSpec + ", " + numThreads + " search threads");
+        }
+        try
+        {
+            run(port, 1, WARMUP_SECONDS, thinkMillis); // (so the JIT has compiled the search before we time it.)
+            System.out.println("games,moves,movesPerSecond,meanMillis,p50Millis,p90Millis,p99Millis,maxMillis");
+            int bestNumGames = 0;
+            for (int numGames : numGamesToTry)
+            {
+                long[] latencies = run(port, numGames, seconds, thinkMillis);
+                Arrays.sort(latencies);
+                double p99 = percentileMillis(latencies, 0.99);
+                System.out.printf(Locale.ROOT, "%d,%d,%.1f,%.2f,%.2f,%.2f,%.2f,%.2f%n", numGames, latencies.length,
+                        (double) latencies.length / seconds, Arrays.stream(latencies).average().orElse(0) / 1e6,
+                        percentileMillis(latencies, 0.5), percentileMillis(latencies, 0.9), p99,
+                        percentileMillis(latencies, 1));
+                if (p99 > targetMillis)
+                    break;
+                bestNumGames = numGames;
+            }
+            System.out.printf(Locale.ROOT, "# %d games at once with the computer's p99 move latency under %.0f ms%n",
+                    bestNumGames, targetMillis);
+        }
+        finally
+        {
+            if (server != null)
+                server.close();
+        }
+    }
+
+    /**
+     * plays the given number of games against the server at once, for the given time.
+     * @return - how long each COMPUTER command took, in nanoseconds (in no particular order).
+     */
+    private static long[] run(int port, int numGames, int seconds, long thinkMillis) throws Exception
+    {
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        Client[] clients = new Client[numGames];
+        Thread[] threads = new Thread[numGames];
+        for (int i = 0; i < numGames; i++)
+        {
+            clients[i] = new Client(port, i, deadline, thinkMillis);
+            threads[i] = Thread.ofVirtual().start(clients[i]);
+        }
+        int numLatencies = 0;
+        for (int i = 0; i < numGames; i++)
+        {
+            threads[i].join();
+            if (clients[i].failure != null)
+                throw clients[i].failure;
+            numLatencies += clients[i].numLatencies;
+        }
+        long[] latencies = new long[numLatencies];
+        numLatencies = 0;
+        for (Client client : clients)
+        {
+            System.arraycopy(client.latencies, 0, latencies, numLatencies, client.numLatencies);
+            numLatencies += client.numLatencies;
+        }
+        return latencies;
+    }
+
+    /**
+     * @param sortedLatencies - in nanoseconds, smallest first
+     * @param fraction - e.g. 0.99 for the 99th percentile
+     * @return - that percentile, in milliseconds.
+     */
+    private static double percentileMillis(long[] sortedLatencies, double fraction)
+    {
+        if (sortedLatencies.length == 0)
+            return 0;
+        int index = (int) Math.ceil(fraction * sortedLatencies.length) - 1;
+        return sortedLatencies[Math.max(0, index)] / 1e6;
+    }
+
+    /**
+     * one connection to the server, playing game after game until the deadline. It keeps its own copy of each board,
+     * to choose the human's moves on and to check the server's answers against.
+     */
+    private static class Client implements Runnable
+    {
+        private final int port;
+        private final long deadline, thinkMillis;
+        private final Random random;
+        private long seed;
+        long[] latencies = new long[1024];
+        int numLatencies;
+        Exception failure;
+
+        Client(int port, int clientNumber, long deadline, long thinkMillis)
+        {
+            this.port = port;
+            this.deadline = deadline;
+            this.thinkMillis = thinkMillis;
+            random = new Random(clientNumber);
+            seed = 1000L * clientNumber;
+        }
+
+        public void run()
+        {
+            try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port))
+            {
+                socket.setTcpNoDelay(true);
+                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                        StandardCharsets.US_ASCII));
+                PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.US_ASCII);
+                while (System.nanoTime() < deadline)
+                    playGame(in, out);
+                out.println("QUIT");
+            }
+            catch (Exception e)
+            {
+                failure = e;
+            }
+        }
+
+        private void playGame(BufferedReader in, PrintWriter out) throws IOException, InterruptedException
+        {
+            Board board = newGame(ask(in, out, "NEW " + seed++));
+            int[] moves = new int[GameState.DELTAS.length];
+            while (!board.isGameOver() && System.nanoTime() < deadline)
+            {
+                if (board.getTurn() % 2 == GameState.HUMAN)
+                {
+                    if (thinkMillis > 0)
+                        Thread.sleep(random.nextLong(2 * thinkMillis));
+                    int numMoves = board.generateMoves(GameState.HUMAN, moves, 0);
+                    int move = moves[random.nextInt(numMoves)];
+                    board.makeMove(move);
+                    checkScores(board, ask(in, out, "MOVE " + Move.getDirection(move)), 1);
+                }
+                else
+                {
+                    long start = System.nanoTime();
+                    String answer = ask(in, out, "COMPUTER");
+                    recordLatency(System.nanoTime() - start);
+                    int direction = Integer.parseInt(answer.split(" ")[1]);
+                    int numMoves = board.generateMoves(GameState.COMPUTER, moves, 0);
+                    for (int i = 0; i < numMoves; i++)
+                    {
+                        if (Move.getDirection(moves[i]) == direction)
+                        {
+                            board.makeMove(moves[i]);
+                            break;
+                        }
+                    }
+                    checkScores(board, answer, 2);
+                }
+            }
+        }
+
+        /**
+         * sends a command and waits for the answer.
+         * @throws IOException if the server answers with an error, or hangs up.
+         */
+        private static String ask(BufferedReader in, PrintWriter out, String command) throws IOException
+        {
+            out.println(command);
+            String answer = in.readLine();
+            if (answer == null || answer.startsWith("ERROR"))
+                throw new IOException("Hey, the server said " + answer + " to " + command);
+            return answer;
+        }
+
+        /**
+         * @param answer - the server's answer to NEW
+         * @return - the board it describes
+         */
+        private static Board newGame(String answer)
+        {
+            String[] words = answer.split(" ");
+            int numRows = Integer.parseInt(words[1]), numCols = Integer.parseInt(words[2]);
+            int[] startValues = new int[numRows * numCols];
+            for (int cell = 0; cell < startValues.length; cell++)
+                startValues[cell] = Integer.parseInt(words[5 + cell]);
+            return new GameState(numRows, numCols, Integer.parseInt(words[3]), Integer.parseInt(words[4]),
+                    startValues);
+        }
+
+        /**
+         * @param board - our copy of the board, after the move
+         * @param answer - the server's answer to the move
+         * @param firstScore - which word of the answer the human's score is
+         * @throws IOException if the server's scores are different from ours.
+         */
+        private static void checkScores(Board board, String answer, int firstScore) throws IOException
+        {
+            String[] words = answer.split(" ");
+            int[] scores = board.getScores();
+            if (Integer.parseInt(words[firstScore]) != scores[GameState.HUMAN]
+                    || Integer.parseInt(words[firstScore + 1]) != scores[GameState.COMPUTER])
+                throw new IOException("Hey, the server's board is different from ours: " + answer);
+        }
+
+        private void recordLatency(long nanos)
+        {
+            if (numLatencies == latencies.length)
+                latencies = Arrays.copyOf(latencies, 2 * numLatencies);
+            latencies[numLatencies++] = nanos;
+        }
+    }
+}
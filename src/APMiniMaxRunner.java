@@ -1,8 +1,124 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+
 public class APMiniMaxRunner
 {
-    public static void main(String[] args)
+    /**
+     * @param args - any of:
+     *             "size=32" or "size=32x16" - play on a board with that many rows (x columns) instead of 6x6
+     *             "values=1-50" - have reset() fill the board with numbers in that range instead of 10-99
+     *             "bitboard" - play on a BitboardState instead of the usual GameState
+     *             "sparse" or "sparse=0.1" - play on a SparseState, with that fraction of the cells filled (default 1)
+     *             "ponder" - let the computer think during the human's turn
+     *             "mcts" or "mcts=4" - have the computer play by Monte Carlo Tree Search (on that many threads) instead
+     *             of minimax
+     *             "tablebase=endgames.tb" - look up the endgames in that file (see TablebaseGenerator)
+     *             "seed=42" - start with the board that seed makes (later games are random)
+     *             "book=openings.book" - look up the computer's opening moves in that file (see OpeningBookBuilder)
+     *             "record=games.rec" - add every game played to that file (see GameRecordWriter)
+     *             "replay=games.rec" - play back the first game in that file (or "game=3" - the fourth) instead of
+     *             starting a new one
+     */
+    public static void main(String[] args) throws IOException
     {
-        GameFrame app = new GameFrame();
+        int numRows = GameState.NUM_ROWS_AND_COLS, numCols = GameState.NUM_ROWS_AND_COLS;
+        int minValue = GameState.MIN_VALUE, maxValue = GameState.MAX_VALUE;
+        String storage = "grid";
+        double density = 1;
+        boolean pondering = false;
+        int monteCarloThreads = 0;
+        Tablebase tablebase = null;
+        Random random = new Random();
+        OpeningBook openingBook = null;
+        GameRecordWriter recorder = null;
+        Path replayFile = null;
+        int replayGame = 0;
+        for (String arg : args)
+        {
+            if (arg.startsWith("size="))
+            {
+                String[] size = arg.substring(5).split("x");
+                numRows = Integer.parseInt(size[0]);
+                numCols = Integer.parseInt(size[size.length-1]);
+            }
+            else if (arg.startsWith("values="))
+            {
+                String[] range = arg.substring(7).split("-");
+                minValue = Integer.parseInt(range[0]);
+                maxValue = Integer.parseInt(range[1]);
+            }
+            else if (arg.equals("bitboard"))
+                storage = "bitboard";
+            else if (arg.startsWith("sparse"))
+            {
+                storage = "sparse";
+                if (arg.startsWith("sparse="))
+                    density = Double.parseDouble(arg.substring(7));
+            }
+            else if (arg.equals("ponder"))
+                pondering = true;
+            else if (arg.startsWith("mcts"))
+                monteCarloThreads = arg.startsWith("mcts=") ? Integer.parseInt(arg.substring(5)) : 1;
+            else if (arg.startsWith("tablebase="))
+                tablebase = Tablebase.open(Path.of(arg.substring(10)));
+            else if (arg.startsWith("seed="))
+                random = new Random(Long.parseLong(arg.substring(5)));
+            else if (arg.startsWith("book="))
+                openingBook = new OpeningBook(Path.of(arg.substring(5)));
+            else if (arg.startsWith("record="))
+                recorder = new GameRecordWriter(Path.of(arg.substring(7)));
+            else if (arg.startsWith("replay="))
+                replayFile = Path.of(arg.substring(7));
+            else if (arg.startsWith("game="))
+                replayGame = Integer.parseInt(arg.substring(5));
+            else
+                throw new IllegalArgumentException("Hey, I don't know what \"" + arg + "\" means.");
+        }
+        Board board = switch (storage)
+        {
+            case "bitboard" -> new BitboardState(numRows, numCols, minValue, maxValue, random);
+            case "sparse" -> new SparseState(numRows, numCols, minValue, maxValue, density, random);
+            default -> new GameState(numRows, numCols, minValue, maxValue, random);
+        };
+        GameRecord replay = null;
+        if (replayFile != null)
+        {
+            try (GameRecordReader reader = new GameRecordReader(replayFile))
+            {
+                replay = reader.next();
+                for (int i = 0; i < replayGame && replay != null; i++)
+                    replay = reader.next();
+            }
+            if (replay == null)
+                throw new IllegalArgumentException("Hey, " + replayFile + " doesn't have a game " + replayGame + ".");
+            board = replay.newBoard();
+        }
+        GameFrame app = new GameFrame(board);
+        app.setPondering(pondering);
+        app.setMonteCarloThreads(monteCarloThreads);
+        app.setTablebase(tablebase);
+        app.setOpeningBook(openingBook);
+        app.setRecorder(recorder);
+        if (recorder != null)
+        {
+            // the window closes the recorder (with the game in progress) - but the program might be ended some other
+            // way, e.g. with ctrl+C, and then at least the games that are over should be written out whole.
+            GameRecordWriter games = recorder;
+            Runtime.getRuntime().addShutdownHook(new Thread(() ->
+            {
+                try
+                {
+                    games.close();
+                }
+                catch (IOException e)
+                {
+                    System.err.println("Hey, I couldn't record the games: " + e);
+                }
+            }));
+        }
+        if (replay != null)
+            app.replay(replay);
         app.setVisible(true);
     }
 }
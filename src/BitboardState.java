@@ -0,0 +1,401 @@
+import java.util.Random;
+
+/**
+ * A Board that keeps track of which cells still have numbers as bits in longs ("bitboards") rather than by looking
+ * through an int[][]. Cell number (row * numCols + col) is bit (cell % 64) of word (cell / 64), so the usual 6x6 board
+ * fits in a single long, and bigger boards just use a few more.
+ * *
+ * liveCells has a bit set for every cell that still shows a number. So the game is over when every word of liveCells
+ * is zero, and the number of cells left is a bit count. Numbers still drop by one each turn without visiting every
+ * cell: we keep a bitboard of the un-gobbled cells for each starting value, and when the turn counter reaches a value,
+ * that value's cells are cleared out of liveCells in one go.
+ * *
+ * This plays exactly the same game as GameState, and gives positions the same Zobrist keys.
+ */
+public class BitboardState implements Board
+{
+    private final int numRows, numCols, numCells, numWords;
+    private final int minValue, maxValue; // the range of the numbers that reset() puts on the board
+    // for each direction in GameState.DELTAS, the cell you reach by stepping that way from each cell (-1 = off board)
+    private final int[][] stepTo;
+
+    private int[] startValues; // each cell's number at turn zero; 0 once gobbled
+    private long[] liveCells; // a bit for each cell that still shows a number
+    private long[][] cellsWithStartValue; // for each start value, a bitboard of the un-gobbled cells that had it
+    private int[] numCellsWithStartValue; // how many bits are set in each of those
+    private int numLiveCells; // how many bits are set in liveCells
+    private long liveStartTotal; // the total of those cells' numbers at turn zero
+    private int turn;
+    private final int[] playerCells = new int[2]; // (HUMAN, COMPUTER) cell numbers
+    private final int[][] playerPositions = new int[2][2]; // the same as (row, col), for getPlayerPosition()
+    private int[] scores;
+    private long zobristKey;
+
+    /**
+     * makes a new, randomly filled board of the usual size.
+     */
+    public BitboardState()
+    {
+        this(GameState.NUM_ROWS_AND_COLS, GameState.NUM_ROWS_AND_COLS, GameState.MIN_VALUE, GameState.MAX_VALUE);
+        reset();
+    }
+
+    /**
+     * makes a new, randomly filled board of any size. (The same size, range and random numbers as a GameState give the
+     * same board.)
+     * @param numRows - how many rows of boxes
+     * @param numCols - how many columns of boxes
+     * @param minValue - the smallest number reset() puts on the board (at least 1)
+     * @param maxValue - the biggest number reset() puts on the board
+     * @param random - where the numbers come from
+     */
+    public BitboardState(int numRows, int numCols, int minValue, int maxValue, Random random)
+    {
+        this(numRows, numCols, minValue, maxValue);
+        reset(random);
+    }
+
+    /**
+     * makes a bitboard copy of any other Board, in the same position.
+     * @param other - the board to copy
+     */
+    public BitboardState(Board other)
+    {
+        this(other.getNumRows(), other.getNumCols(), other.getMinValue(), other.getMaxValue());
+        loadFrom(other);
+    }
+
+    private BitboardState(int numRows, int numCols, int minValue, int maxValue)
+    {
+        GameState.checkSize(numRows, numCols, minValue, maxValue);
+        this.numRows = numRows;
+        this.numCols = numCols;
+        this.minValue = minValue;
+        this.maxValue = maxValue;
+        numCells = numRows * numCols;
+        numWords = (numCells + 63) / 64;
+        stepTo = new int[GameState.DELTAS.length][numCells];
+        for (int direction = 0; direction < GameState.DELTAS.length; direction++)
+            for (int cell = 0; cell < numCells; cell++)
+            {
+                int r = cell / numCols + GameState.DELTAS[direction][0];
+                int c = cell % numCols + GameState.DELTAS[direction][1];
+                stepTo[direction][cell] = (r < 0 || c < 0 || r >= numRows || c >= numCols) ? -1 : r * numCols + c;
+            }
+    }
+
+    public Board copy()
+    {
+        return new BitboardState(this);
+    }
+
+    public void reset()
+    {
+        reset(new Random());
+    }
+
+    public void reset(Random random)
+    {
+        startValues = new int[numCells];
+        // same numbers, in the same order, as GameState.reset() - so the same seed gives the same board.
+        for (int cell = 1; cell < numCells-1; cell++)
+            startValues[cell] = random.nextInt(maxValue-minValue+1)+minValue;
+        turn = 0;
+        scores = new int[2];
+        placePlayer(GameState.HUMAN, 0);
+        placePlayer(GameState.COMPUTER, numCells-1);
+        rebuild();
+    }
+
+    /**
+     * copies the position of another board into this one (which must be the same size).
+     * @param other - the board to copy
+     */
+    private void loadFrom(Board other)
+    {
+        startValues = new int[numCells];
+        for (int cell = 0; cell < numCells; cell++)
+            startValues[cell] = other.getStartValue(cell / numCols, cell % numCols);
+        turn = other.getTurn();
+        scores = other.getScores().clone();
+        for (int player = GameState.HUMAN; player <= GameState.COMPUTER; player++)
+        {
+            int[] pos = other.getPlayerPosition(player);
+            placePlayer(player, pos[0] * numCols + pos[1]);
+        }
+        rebuild();
+    }
+
+    /**
+     * works out the bitboards, counts and Zobrist key from startValues, turn and the player positions.
+     */
+    private void rebuild()
+    {
+        liveCells = new long[numWords];
+        cellsWithStartValue = new long[maxValue+1][numWords];
+        numCellsWithStartValue = new int[maxValue+1];
+        numLiveCells = 0;
+        liveStartTotal = 0;
+        zobristKey = Zobrist.turnKey(turn);
+        for (int player = GameState.HUMAN; player <= GameState.COMPUTER; player++)
+            zobristKey ^= Zobrist.positionKey(player, playerCells[player]);
+        for (int cell = 0; cell < numCells; cell++)
+        {
+            int value = startValues[cell];
+            if (value == 0)
+                continue;
+            cellsWithStartValue[value][cell >>> 6] |= 1L << cell;
+            numCellsWithStartValue[value]++;
+            if (value > turn)
+            {
+                liveCells[cell >>> 6] |= 1L << cell;
+                numLiveCells++;
+                liveStartTotal += value;
+            }
+            zobristKey ^= Zobrist.cellKey(cell, value);
+        }
+    }
+
+    private void placePlayer(int whichPlayer, int cell)
+    {
+        playerCells[whichPlayer] = cell;
+        playerPositions[whichPlayer][0] = cell / numCols;
+        playerPositions[whichPlayer][1] = cell % numCols;
+    }
+
+    public int getNumRows()
+    {
+        return numRows;
+    }
+
+    public int getNumCols()
+    {
+        return numCols;
+    }
+
+    public int getMinValue()
+    {
+        return minValue;
+    }
+
+    public int getMaxValue()
+    {
+        return maxValue;
+    }
+
+    public int getValue(int r, int c)
+    {
+        return cellValue(r * numCols + c);
+    }
+
+    public int getStartValue(int r, int c)
+    {
+        return startValues[r * numCols + c];
+    }
+
+    public int[] getPlayerPosition(int whichPlayer)
+    {
+        return playerPositions[whichPlayer];
+    }
+
+    public int[] getScores()
+    {
+        return scores;
+    }
+
+    public int getScoreRanking()
+    {
+        return scores[GameState.COMPUTER] - scores[GameState.HUMAN];
+    }
+
+    public int getTurn()
+    {
+        return turn;
+    }
+
+    public long getZobristKey()
+    {
+        return zobristKey;
+    }
+
+    public int checkForPossibleHumanMoves()
+    {
+        int[] flags = {GameState.UP_FLAG, GameState.LEFT_FLAG, GameState.DOWN_FLAG, GameState.RIGHT_FLAG};
+        int result = 0;
+        for (int direction = 0; direction < GameState.DELTAS.length; direction++)
+        {
+            int to = stepTo[direction][playerCells[GameState.HUMAN]];
+            if (to >= 0 && to != playerCells[GameState.COMPUTER])
+                result += flags[direction];
+        }
+        return result;
+    }
+
+    public MoveDescription describeMove(int whichPlayer, int deltaR, int deltaC)
+    {
+        int[] start = playerPositions[whichPlayer].clone();
+        int[] destination = {start[0] + deltaR, start[1] + deltaC};
+        return new MoveDescription(whichPlayer, start, destination, getValue(destination[0], destination[1]));
+    }
+
+    public void makeMove(MoveDescription move)
+    {
+        makeMove(Move.fromDescription(move));
+    }
+
+    public void undoMove(MoveDescription move)
+    {
+        undoMove(Move.fromDescription(move));
+    }
+
+    public void makeMove(int move)
+    {
+        int player = Move.getWhichPlayerIsMoving(move);
+        int pickedUp = Move.getWhatIsPickedUp(move);
+        int from = playerCells[player];
+        int to = stepTo[Move.getDirection(move)][from];
+        placePlayer(player, to);
+        scores[player] += pickedUp;
+        zobristKey ^= Zobrist.positionKey(player, from) ^ Zobrist.positionKey(player, to);
+        if (pickedUp > 0)
+        {
+            int startValue = startValues[to];
+            long bit = 1L << to;
+            liveCells[to >>> 6] &= ~bit;
+            cellsWithStartValue[startValue][to >>> 6] &= ~bit;
+            numCellsWithStartValue[startValue]--;
+            numLiveCells--;
+            liveStartTotal -= startValue;
+            startValues[to] = 0;
+            zobristKey ^= Zobrist.cellKey(to, startValue);
+        }
+        zobristKey ^= Zobrist.turnKey(turn) ^ Zobrist.turnKey(turn+1);
+        turn++;
+        // every cell that started with the value "turn" has just run out.
+        if (turn < cellsWithStartValue.length && numCellsWithStartValue[turn] > 0)
+        {
+            long[] runningOut = cellsWithStartValue[turn];
+            for (int w = 0; w < numWords; w++)
+                liveCells[w] &= ~runningOut[w];
+            numLiveCells -= numCellsWithStartValue[turn];
+            liveStartTotal -= (long) numCellsWithStartValue[turn] * turn;
+        }
+    }
+
+    public void undoMove(int move)
+    {
+        if (turn < cellsWithStartValue.length && numCellsWithStartValue[turn] > 0)
+        {
+            long[] comingBack = cellsWithStartValue[turn];
+            for (int w = 0; w < numWords; w++)
+                liveCells[w] |= comingBack[w];
+            numLiveCells += numCellsWithStartValue[turn];
+            liveStartTotal += (long) numCellsWithStartValue[turn] * turn;
+        }
+        turn--;
+        zobristKey ^= Zobrist.turnKey(turn+1) ^ Zobrist.turnKey(turn);
+        int player = Move.getWhichPlayerIsMoving(move);
+        int pickedUp = Move.getWhatIsPickedUp(move);
+        int to = playerCells[player];
+        if (pickedUp > 0)
+        {
+            int startValue = pickedUp + turn;
+            long bit = 1L << to;
+            liveCells[to >>> 6] |= bit;
+            cellsWithStartValue[startValue][to >>> 6] |= bit;
+            numCellsWithStartValue[startValue]++;
+            numLiveCells++;
+            liveStartTotal += startValue;
+            startValues[to] = startValue;
+            zobristKey ^= Zobrist.cellKey(to, startValue);
+        }
+        scores[player] -= pickedUp;
+        // step back the opposite way: directions are listed up, left, down, right, so the opposite is two along.
+        int from = stepTo[(Move.getDirection(move) + 2) % 4][to];
+        placePlayer(player, from);
+        zobristKey ^= Zobrist.positionKey(player, to) ^ Zobrist.positionKey(player, from);
+    }
+
+    public int generateMoves(int whichPlayer, int[] moves, int offset)
+    {
+        int from = playerCells[whichPlayer];
+        int blocked = playerCells[1-whichPlayer];
+        int numMoves = 0;
+        for (int direction = 0; direction < GameState.DELTAS.length; direction++)
+        {
+            int to = stepTo[direction][from];
+            if (to < 0 || to == blocked)
+                continue;
+            int move = Move.encode(whichPlayer, direction, cellValue(to));
+            // insertion sort - there are never more than four of these.
+            int i = offset + numMoves;
+            while (i > offset && Move.getWhatIsPickedUp(moves[i-1]) < Move.getWhatIsPickedUp(move))
+            {
+                moves[i] = moves[i-1];
+                i--;
+            }
+            moves[i] = move;
+            numMoves++;
+        }
+        return numMoves;
+    }
+
+    public boolean isGameOver()
+    {
+        return numLiveCells == 0;
+    }
+
+    public int getTurnsUntilAllRunOut()
+    {
+        for (int value = numCellsWithStartValue.length-1; value > turn; value--)
+            if (numCellsWithStartValue[value] > 0)
+                return value - turn;
+        return 0;
+    }
+
+    public int getNumLiveCells()
+    {
+        return numLiveCells;
+    }
+
+    public int getRemainingTotal()
+    {
+        return (int) (liveStartTotal - (long) numLiveCells * turn);
+    }
+
+    public int getMostPointsForOnePlayer(int whichPlayer)
+    {
+        int firstPly = (turn % 2 == whichPlayer) ? 0 : 1; // (how many turns until the player's first move.)
+        int pr = playerPositions[whichPlayer][0], pc = playerPositions[whichPlayer][1];
+        int total = 0;
+        for (int word = 0; word < numWords; word++)
+        {
+            for (long bits = liveCells[word]; bits != 0; bits &= bits - 1)
+            {
+                int cell = (word << 6) + Long.numberOfTrailingZeros(bits);
+                int distance = Math.abs(cell / numCols - pr) + Math.abs(cell % numCols - pc);
+                int gain = startValues[cell] - turn - firstPly - 2 * (distance - 1);
+                if (gain > 0)
+                    total += gain;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * @return - the bitboard of cells that still show a number (one long per 64 cells). Don't change it.
+     */
+    public long[] getLiveCells()
+    {
+        return liveCells;
+    }
+
+    /**
+     * @param cell - a cell number
+     * @return - the number that cell shows right now.
+     */
+    private int cellValue(int cell)
+    {
+        return (liveCells[cell >>> 6] & (1L << cell)) != 0 ? startValues[cell] - turn : 0;
+    }
+}
@@ -0,0 +1,150 @@
+import java.util.Random;
+
+/**
+ * Everything the search and the panel need to know about a game of "Gobble up!", whichever way the board happens to
+ * be stored. GameState keeps the numbers in an int[][]; BitboardState keeps which cells are left in bits of longs.
+ * SparseState keeps only the cells that still have numbers, in a hash table, for very big boards. They all play exactly
+ * the same game (and give the same positions the same Zobrist keys), so any of them can be handed to MiniMaxEngine,
+ * ParallelSearch or GamePanel. Boards can be any size, and the range of numbers reset() uses can be chosen too.
+ * *
+ * The constants (HUMAN, COMPUTER, DELTAS, the flags...) live in GameState.
+ */
+public interface Board
+{
+    /**
+     * randomizes the numbers on the field, places the players in their start positions and resets the scores to zero.
+     */
+    void reset();
+
+    /**
+     * the same as reset(), but taking the numbers from the given random number generator.
+     * @param random - where the numbers come from
+     */
+    void reset(Random random);
+
+    /**
+     * @return - an independent copy of this board, stored the same way, that can be changed (or searched on another
+     * thread) without affecting this one.
+     */
+    Board copy();
+
+    int getNumRows();
+
+    int getNumCols();
+
+    /**
+     * @return - the smallest number reset() puts on the board.
+     */
+    int getMinValue();
+
+    /**
+     * @return - the biggest number reset() puts on the board (and so the biggest there can ever be).
+     */
+    int getMaxValue();
+
+    /**
+     * @param r - row
+     * @param c - column
+     * @return - the number currently shown in that cell (zero if it has been gobbled up or has run out)
+     */
+    int getValue(int r, int c);
+
+    /**
+     * @param r - row
+     * @param c - column
+     * @return - the number the cell had at turn zero, or zero if it has been gobbled up (or never had a number).
+     */
+    int getStartValue(int r, int c);
+
+    /**
+     * @param whichPlayer - HUMAN or COMPUTER
+     * @return - the (row, col) where that player is standing.
+     */
+    int[] getPlayerPosition(int whichPlayer);
+
+    /**
+     * @return - a two element array of (human score, computer score)
+     */
+    int[] getScores();
+
+    /**
+     * @return - how far ahead the computer is (computer's score - human's score). Negative if the human is winning.
+     */
+    int getScoreRanking();
+
+    /**
+     * @return - how many moves (by either player) have been made since the start of the game.
+     */
+    int getTurn();
+
+    /**
+     * @return - the Zobrist key of this position (see Zobrist): where the players are, which cells are left and whose
+     * turn it is.
+     */
+    long getZobristKey();
+
+    /**
+     * @return the sum of GameState's UP/DOWN/LEFT/RIGHT flags for the directions the human may move.
+     */
+    int checkForPossibleHumanMoves();
+
+    /**
+     * @param whichPlayer - HUMAN or COMPUTER
+     * @param deltaR - the requested change in the player's row
+     * @param deltaC - the requested change in the player's column
+     * @return - a description of that move, including what it would pick up.
+     */
+    MoveDescription describeMove(int whichPlayer, int deltaR, int deltaC);
+
+    void makeMove(MoveDescription move);
+
+    void undoMove(MoveDescription move);
+
+    /**
+     * @param move - a packed move (see Move) made from this position.
+     */
+    void makeMove(int move);
+
+    /**
+     * @param move - the packed move that was the last one made.
+     */
+    void undoMove(int move);
+
+    /**
+     * puts the legal moves for the given player into an array as packed moves (see Move), biggest gobbles first.
+     * @param whichPlayer - HUMAN or COMPUTER
+     * @param moves - where to put the moves; there must be room for four, starting at offset.
+     * @param offset - where in the array to put the first move
+     * @return - how many moves there were
+     */
+    int generateMoves(int whichPlayer, int[] moves, int offset);
+
+    /**
+     * @return - whether all the numbers have been "gobbled up" (or have run out).
+     */
+    boolean isGameOver();
+
+    /**
+     * @return - how many more moves it will take for every number to run out, if nobody gobbles any of them.
+     */
+    int getTurnsUntilAllRunOut();
+
+    /**
+     * @return - how many cells still show a non-zero number.
+     */
+    int getNumLiveCells();
+
+    /**
+     * @return - the total of all the numbers still shown: the most points that are left for both players together.
+     * (Kept up to date by makeMove() and undoMove(), so it costs nothing to ask.)
+     */
+    int getRemainingTotal();
+
+    /**
+     * @param whichPlayer - HUMAN or COMPUTER
+     * @return - the most points that player could gain from here, even if the other player gobbled nothing: a number
+     * d steps away can't be reached before the player's d-th move from now, and by then it has dropped by one for every
+     * turn in between - so late in the game, most numbers will run out before anyone gets to them.
+     */
+    int getMostPointsForOnePlayer(int whichPlayer);
+}
@@ -0,0 +1,156 @@
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+/**
+ * Keeps running figures about the searches a MiniMaxEngine has done - the last search's nodes, depth, cutoffs etc.,
+ * and latency percentiles over the most recent LATENCY_WINDOW searches - and can publish them as a JMX MBean so they
+ * can be charted without attaching a profiler. Give one to an engine with MiniMaxEngine.setStats(); an engine without
+ * one doesn't do any of this work.
+ * *
+ * The engine records from its own thread while JMX reads from another, so every method is synchronized. That happens
+ * once per move, not once per node, so it costs nothing worth measuring.
+ */
+public class EngineStats implements EngineStatsMBean
+{
+    // how many of the most recent searches the latency percentiles are worked out from.
+    public static final int LATENCY_WINDOW = 1024;
+
+    private final long[] latencies = new long[LATENCY_WINDOW]; // nanoseconds, as a ring buffer
+    private long searches, totalNodes;
+    private long lastNodes, lastCutoffs, lastElapsedNanos;
+    private int lastDepth;
+    private double lastBranchingFactor, lastTableHitRate;
+
+    /**
+     * makes an EngineStats and registers it with the platform MBean server as APMiniMax:type=EngineStats,name=(name).
+     * @param name - tells this engine's figures apart from any others'
+     * @return - the registered EngineStats
+     */
+    public static EngineStats register(String name)
+    {
+        EngineStats stats = new EngineStats();
+        try
+        {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(stats,
+                    new ObjectName("APMiniMax:type=EngineStats,name=" + ObjectName.quote(name)));
+        }
+        catch (JMException e)
+        {
+            throw new RuntimeException("Couldn't register the engine statistics as \"" + name + "\".", e);
+        }
+        return stats;
+    }
+
+    /**
+     * adds one finished search to the figures.
+     * @param nodes - nodes visited
+     * @param depth - steps looked ahead by the deepest finished search
+     * @param branchingFactor - average moves per expanded node
+     * @param cutoffs - alpha-beta cutoffs
+     * @param tableHitRate - fraction of transposition table probes that hit
+     * @param elapsedNanos - how long the search took
+     */
+    public synchronized void record(long nodes, int depth, double branchingFactor, long cutoffs, double tableHitRate,
+                                    long elapsedNanos)
+    {
+        latencies[(int) (searches % LATENCY_WINDOW)] = elapsedNanos;
+        searches++;
+        totalNodes += nodes;
+        lastNodes = nodes;
+        lastDepth = depth;
+        lastBranchingFactor = branchingFactor;
+        lastCutoffs = cutoffs;
+        lastTableHitRate = tableHitRate;
+        lastElapsedNanos = elapsedNanos;
+    }
+
+    public synchronized long getSearches()
+    {
+        return searches;
+    }
+
+    public synchronized long getTotalNodes()
+    {
+        return totalNodes;
+    }
+
+    public synchronized long getLastNodes()
+    {
+        return lastNodes;
+    }
+
+    public synchronized int getLastDepth()
+    {
+        return lastDepth;
+    }
+
+    public synchronized double getLastElapsedMillis()
+    {
+        return lastElapsedNanos / 1e6;
+    }
+
+    public synchronized double getLastNodesPerSecond()
+    {
+        return lastElapsedNanos == 0 ? 0 : lastNodes * 1e9 / lastElapsedNanos;
+    }
+
+    public synchronized double getLastBranchingFactor()
+    {
+        return lastBranchingFactor;
+    }
+
+    public synchronized long getLastCutoffs()
+    {
+        return lastCutoffs;
+    }
+
+    public synchronized double getLastTableHitRate()
+    {
+        return lastTableHitRate;
+    }
+
+    public double getLatencyMillisP50()
+    {
+        return getLatencyMillis(0.50);
+    }
+
+    public double getLatencyMillisP90()
+    {
+        return getLatencyMillis(0.90);
+    }
+
+    public double getLatencyMillisP99()
+    {
+        return getLatencyMillis(0.99);
+    }
+
+    public double getLatencyMillisMax()
+    {
+        return getLatencyMillis(1.0);
+    }
+
+    public synchronized void reset()
+    {
+        Arrays.fill(latencies, 0);
+        searches = totalNodes = lastNodes = lastCutoffs = lastElapsedNanos = 0;
+        lastDepth = 0;
+        lastBranchingFactor = lastTableHitRate = 0;
+    }
+
+    /**
+     * @param fraction - which percentile, e.g. 0.99 for the 99th
+     * @return - that percentile of the recent search times, in milliseconds (0 if there haven't been any searches).
+     */
+    public synchronized double getLatencyMillis(double fraction)
+    {
+        int count = (int) Math.min(searches, LATENCY_WINDOW);
+        if (count == 0)
+            return 0;
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(fraction * count) - 1;
+        return sorted[Math.max(0, Math.min(count - 1, index))] / 1e6;
+    }
+}
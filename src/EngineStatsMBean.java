@@ -0,0 +1,36 @@
+/**
+ * What EngineStats shows over JMX (e.g. in JConsole or VisualVM, under "APMiniMax").
+ */
+public interface EngineStatsMBean
+{
+    long getSearches();
+
+    long getTotalNodes();
+
+    long getLastNodes();
+
+    int getLastDepth();
+
+    double getLastElapsedMillis();
+
+    double getLastNodesPerSecond();
+
+    double getLastBranchingFactor();
+
+    long getLastCutoffs();
+
+    double getLastTableHitRate();
+
+    double getLatencyMillisP50();
+
+    double getLatencyMillisP90();
+
+    double getLatencyMillisP99();
+
+    double getLatencyMillisMax();
+
+    /**
+     * forgets everything recorded so far.
+     */
+    void reset();
+}
@@ -0,0 +1,36 @@
+/**
+ * Guesses how a position will turn out, for MiniMaxEngine to use when it has looked as far ahead as it is going to
+ * (see MiniMaxEngine.setEvaluator()). Without one, the engine just uses the score ranking so far - which means it has
+ * to look a long way ahead to notice anything else.
+ * *
+ * An Evaluator may keep its own picture of the board up to date as the search makes and undoes moves, rather than
+ * working everything out again at every leaf: the engine calls attach() before it starts, moveMade() straight after
+ * each Board.makeMove() and moveUndone() straight after each Board.undoMove(). Each engine needs its own Evaluator.
+ */
+public interface Evaluator
+{
+    /**
+     * starts following the given board. Called at the start of each search, before any moves are made.
+     * @param board - the position the search starts from
+     */
+    void attach(Board board);
+
+    /**
+     * @param board - the board, just after the move was made
+     * @param move - the packed move (see Move) that was made
+     */
+    void moveMade(Board board, int move);
+
+    /**
+     * @param board - the board, just after the move was undone
+     * @param move - the packed move (see Move) that was undone
+     */
+    void moveUndone(Board board, int move);
+
+    /**
+     * @param board - the position to judge (the same one the Evaluator has been following)
+     * @return - how far ahead we expect the computer to finish (computer's score - human's score), in the same units as
+     * Board.getScoreRanking().
+     */
+    int evaluate(Board board);
+}
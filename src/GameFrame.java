@@ -2,28 +2,57 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 
 public class GameFrame extends JFrame implements ActionListener
 {
+    // the most of the screen the board may take up before we scroll it instead.
+    public static final int MAX_BOARD_VIEW_WIDTH = 900, MAX_BOARD_VIEW_HEIGHT = 700;
+
     private final GamePanel mainPanel;
 
     private JButton upArrowButton, downArrowButton, leftArrowButton, rightArrowButton;
-    private JButton resetButton;
+    private JButton resetButton, zoomInButton, zoomOutButton;
     private JLabel humanScoreLabel, computerScoreLabel, indicatorLabel;
 
     public GameFrame()
+    {
+        this(new GameState());
+    }
+
+    /**
+     * @param board - the game to play, stored however we like (e.g. a GameState, BitboardState or SparseState), and of
+     *              any size. A board too big for the window can be scrolled, and zoomed with the +/- buttons (or
+     *              control + mouse wheel).
+     */
+    public GameFrame(Board board)
     {
         super("Gobble up!");
-        setSize(2*GamePanel.LEFT_MARGIN+GamePanel.NUM_ROWS_AND_COLS*GamePanel.CELL_SIZE+100,
-                2*GamePanel.TOP_MARGIN+GamePanel.NUM_ROWS_AND_COLS*GamePanel.CELL_SIZE+150);
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        setResizable(false);
+        // (the listeners hear about the window closing before the program exits.)
+        addWindowListener(new WindowAdapter()
+        {
+            public void windowClosing(WindowEvent e)
+            {
+                mainPanel.closeRecorder();
+            }
+        });
         getContentPane().setLayout(new BorderLayout());
         getContentPane().add(createControls(), BorderLayout.NORTH);
         setupListeners();
-        mainPanel = new GamePanel(this);
-        getContentPane().add(mainPanel, BorderLayout.CENTER);
-
+        mainPanel = new GamePanel(this, board);
+        JScrollPane scrollPane = new JScrollPane(mainPanel);
+        scrollPane.getVerticalScrollBar().setUnitIncrement(GamePanel.CELL_SIZE / 2);
+        scrollPane.getHorizontalScrollBar().setUnitIncrement(GamePanel.CELL_SIZE / 2);
+        Dimension boardSize = mainPanel.getPreferredSize();
+        boolean fits = boardSize.width <= MAX_BOARD_VIEW_WIDTH && boardSize.height <= MAX_BOARD_VIEW_HEIGHT;
+        scrollPane.setPreferredSize(new Dimension(Math.min(boardSize.width, MAX_BOARD_VIEW_WIDTH) + 4,
+                Math.min(boardSize.height, MAX_BOARD_VIEW_HEIGHT) + 4));
+        getContentPane().add(scrollPane, BorderLayout.CENTER);
+        pack();
+        // the usual 6x6 board is a fixed size, as it always was; a bigger one can be given more room.
+        setResizable(!fits);
     }
 
     public Box createControls()
@@ -48,6 +77,10 @@ public class GameFrame extends JFrame implements ActionListener
         result.add(ArrowButtonPanel);
         resetButton = new JButton("Reset");
         result.add(resetButton);
+        zoomInButton = new JButton("+");
+        result.add(zoomInButton);
+        zoomOutButton = new JButton("-");
+        result.add(zoomOutButton);
         humanScoreLabel = new JLabel ("0");
         humanScoreLabel.setForeground(Color.BLUE);
         result.add(humanScoreLabel);
@@ -60,6 +93,54 @@ public class GameFrame extends JFrame implements ActionListener
         return result;
     }
 
+    /**
+     * @param pondering - whether the computer should think about its next move while the human chooses theirs.
+     */
+    public void setPondering(boolean pondering)
+    {
+        mainPanel.setPondering(pondering);
+    }
+
+    /**
+     * @param tablebase - endgames the computer should look up instead of searching, or null.
+     */
+    public void setTablebase(Tablebase tablebase)
+    {
+        mainPanel.setTablebase(tablebase);
+    }
+
+    /**
+     * @param openingBook - the computer's moves for the start of some boards, or null.
+     */
+    public void setOpeningBook(OpeningBook openingBook)
+    {
+        mainPanel.setOpeningBook(openingBook);
+    }
+
+    /**
+     * @param numThreads - if not 0, the computer plays with a MonteCarloEngine on this many threads instead of minimax.
+     */
+    public void setMonteCarloThreads(int numThreads)
+    {
+        mainPanel.setMonteCarloThreads(numThreads);
+    }
+
+    /**
+     * @param recorder - where to write each game when it is over, or null. It is closed when the window is.
+     */
+    public void setRecorder(GameRecordWriter recorder)
+    {
+        mainPanel.setRecorder(recorder);
+    }
+
+    /**
+     * @param replay - a recorded game to play back, on a board set up the way it started.
+     */
+    public void replay(GameRecord replay)
+    {
+        mainPanel.replay(replay);
+    }
+
     public void setupListeners()
     {
         upArrowButton.addActionListener(this);
@@ -67,12 +148,18 @@ public class GameFrame extends JFrame implements ActionListener
         leftArrowButton.addActionListener(this);
         rightArrowButton.addActionListener(this);
         resetButton.addActionListener(this);
+        zoomInButton.addActionListener(this);
+        zoomOutButton.addActionListener(this);
     }
     @Override
     public void actionPerformed(ActionEvent aEvt)
     {
         if (aEvt.getSource() == resetButton)
             mainPanel.reset();
+        if (aEvt.getSource() == zoomInButton)
+            mainPanel.zoomBy(+1);
+        if (aEvt.getSource() == zoomOutButton)
+            mainPanel.zoomBy(-1);
         if (aEvt.getSource() == upArrowButton)
             mainPanel.moveHumanBy(-1,0);
         if (aEvt.getSource() == downArrowButton)
@@ -96,7 +183,6 @@ public class GameFrame extends JFrame implements ActionListener
         downArrowButton.setEnabled((flags & GamePanel.DOWN_FLAG) != 0);
         leftArrowButton.setEnabled((flags & GamePanel.LEFT_FLAG) != 0);
         rightArrowButton.setEnabled((flags & GamePanel.RIGHT_FLAG) != 0);
-        repaint();
     }
 
     /**
@@ -107,7 +193,6 @@ public class GameFrame extends JFrame implements ActionListener
     {
         humanScoreLabel.setText(""+scores[0]);
         computerScoreLabel.setText(""+scores[1]);
-        repaint();
     }
 
     /**
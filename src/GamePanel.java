@@ -1,54 +1,192 @@
 import javax.swing.*;
 import java.awt.*;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.TimerTask;
+import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 public class GamePanel extends JPanel
 {
     // constants (thus the "final") ...................................................
-    public static final int NUM_ROWS_AND_COLS = 6;  // num boxes in grid
-    public static final int CELL_SIZE = 60;  // pixels per box
+    public static final int NUM_ROWS_AND_COLS = GameState.NUM_ROWS_AND_COLS;  // num boxes in grid (usually - see Board)
+    public static final int CELL_SIZE = 60;  // pixels per box, until the view is zoomed
+    public static final int MIN_CELL_SIZE = 15, MAX_CELL_SIZE = 120; // how far the view can be zoomed out and in
     public static final int LEFT_MARGIN = 20;
     public static final int TOP_MARGIN = 20;
     // the following "flags" are used to send information to the Frame about which arrow buttons to activate.
-    public static final int UP_FLAG = 1;
-    public static final int DOWN_FLAG = 2;
-    public static final int LEFT_FLAG = 4;
-    public static final int RIGHT_FLAG = 8;
-    // the changes to a row, col to go up, left, down, right, respectively.
-    public static final int[][] DELTAS = {{-1,0},{0,-1},{+1,0},{0,+1}};
+    public static final int UP_FLAG = GameState.UP_FLAG;
+    public static final int DOWN_FLAG = GameState.DOWN_FLAG;
+    public static final int LEFT_FLAG = GameState.LEFT_FLAG;
+    public static final int RIGHT_FLAG = GameState.RIGHT_FLAG;
 
     // These are being used a LOT... for whose turn it is, which score goes up, which position to change, etc.
-    public static final int HUMAN = 0;
-    public static final int COMPUTER = 1;
-    // How many steps ahead is the computer looking to try to find the best course of action?
-    public static final int MAX_STEPS_TO_LOOK = 5;
-    // the font we'll be using to draw the numbers.
-    private final Font myFont = new Font("Arial", Font.BOLD, CELL_SIZE-10);
+    public static final int HUMAN = GameState.HUMAN;
+    public static final int COMPUTER = GameState.COMPUTER;
+    // How long may the computer think about each move? It looks as many steps ahead as it can in this time, and judges
+    // where it has got to with a TerritoryEvaluator.
+    public static final int COMPUTER_THINKING_MILLIS = 50;
+    // With this many cells left (or fewer), the computer works out its move exactly instead - never more than about
+    // 25 ms on a 6x6 board.
+    public static final int ENDGAME_CELLS = 4;
+    // When replaying a recorded game, how long to show each move before making the next.
+    public static final int REPLAY_MILLIS_PER_MOVE = 500;
+    // When pondering, how long may the computer think about each of the human's possible replies during their turn?
+    public static final int PONDER_MILLIS_PER_REPLY = 4 * COMPUTER_THINKING_MILLIS;
     private final Image robotIcon, humanIcon;
+    private static final Color LIGHT_GREEN = new Color(0, 200, 0);
+    private static final Color DARK_GREEN = new Color(0, 96, 0);
+    private int cellSize = CELL_SIZE; // pixels per box at the current zoom
+    // the font we'll be using to draw the numbers.
+    private Font myFont = new Font("Arial", Font.BOLD, CELL_SIZE-10);
+    // pictures of each cell at the current zoom, drawn the first time they are needed:
+    // [(r + c) % 2][the number on it, or 0 if none].
+    private BufferedImage[][] tiles;
     // .......................................................................................
     // Class variables -----------------------------------------------------------------------
-    private int[][] myGrid; // the numbers we're storing.
+    // the numbers, positions and scores - everything but the drawing. Only ever touched on the Swing (event) thread;
+    // the computer thinks about a copy of it.
+    private final Board state;
+    // the computer's thinking is shared between moves through these; each move gets its own MiniMaxEngine, so that it
+    // can be stopped without affecting the next one. The ponderer (if any) thinks in the same table, so what it finds
+    // out during the human's turn is there when the computer searches for itself.
+    private final TranspositionTable table = new TranspositionTable(MiniMaxEngine.DEFAULT_TABLE_MEGABYTES);
+    private final EngineStats stats = EngineStats.register("GamePanel");
+    private Ponderer ponderer; // thinks ahead during the human's turn, or null if we aren't pondering.
+    private volatile Tablebase tablebase; // endgames the computer can look up instead of searching, or null
+    private volatile OpeningBook openingBook; // openings the computer can look up instead of searching, or null
+    private volatile int monteCarloThreads; // if not 0, the computer uses a MonteCarloEngine with this many threads
+    private GameRecordWriter recorder; // where to write each game when it is over, or null
+    private GameRecord record; // the game so far, if we are recording it
+    private long humansTurnStarted; // System.nanoTime() when it last became the human's turn
     // this is a link to the Frame this panel lives in... so that we can tell it about changes
     // to the button and status indicators.
     private final GameFrame parent;
-    private final int[][] playerPositions;  // (HUMAN, COMPUTER) x (row, col)
-    private int[] scores;  // (HUMAN, COMPUTER)
 
-    // used to create a little delay before the computer starts thinking, so that we can see the player's move and turn
-    // indicator before it freezes up to think.
-    private final java.util.Timer computerTurnTimer;
+    // the computer thinks on this thread, after a little delay so that we can see the player's move and turn
+    // indicator first.
+    private final ScheduledExecutorService computerThread =
+            Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("computer").daemon().factory());
+    private Future<?> computersTurn; // the computer's move being worked out, or null
+    private volatile Strategy thinkingEngine; // the engine working it out, or null
+    // goes up whenever the game is reset, so that a move worked out for the old game is thrown away.
+    private int gameNumber;
+    // what the screen was last asked to show, so that repaintChangedCells() knows which cells need drawing again.
+    private final int[][] shownValues;
+    private final int[][] shownPlayerPositions = new int[2][2];
 
     public GamePanel(GameFrame p)
+    {
+        this(p, new GameState());
+    }
+
+    /**
+     * @param p - the frame this panel lives in
+     * @param board - the game to show and play, ready for its first move (e.g. a GameState or a BitboardState)
+     */
+    public GamePanel(GameFrame p, Board board)
     {
         super();
         parent = p;
-        playerPositions = new int[2][2];
-        computerTurnTimer = new java.util.Timer();
+        state = board;
+        shownValues = new int[state.getNumRows()][state.getNumCols()];
+        tiles = new BufferedImage[2][state.getMaxValue()+1];
+        // hold down control and turn the mouse wheel to zoom.
+        addMouseWheelListener(e ->
+        {
+            if ((e.getModifiersEx() & MouseWheelEvent.CTRL_DOWN_MASK) != 0)
+                zoomBy(e.getWheelRotation() < 0 ? 1 : -1);
+            else
+                getParent().dispatchEvent(SwingUtilities.convertMouseEvent(this, e, getParent()));
+        });
         humanIcon = (new ImageIcon("HumanIcon.png")).getImage();// https://www.freepik.com/icon/user_6107173
         robotIcon = (new ImageIcon("RobotIcon.png")).getImage(); // Source: https://www.freepik.com/icon/robot_8006396
-        reset();
+        startGame(); // (the board we were given is already set up - it may have come from a seed.)
+    }
+
+    /**
+     * @param tablebase - endgames the computer should look up instead of searching (if it covers this size of board),
+     *                  or null.
+     */
+    public void setTablebase(Tablebase tablebase)
+    {
+        this.tablebase = tablebase;
+    }
+
+    /**
+     * @param openingBook - the computer's moves for the start of some boards (see OpeningBookBuilder), or null.
+     */
+    public void setOpeningBook(OpeningBook openingBook)
+    {
+        this.openingBook = openingBook;
+    }
+
+    /**
+     * @param numThreads - if not 0, the computer plays with a MonteCarloEngine searching on this many threads, instead
+     *                   of minimax. (The tablebase and opening book are only used by minimax.)
+     */
+    public void setMonteCarloThreads(int numThreads)
+    {
+        monteCarloThreads = numThreads;
+    }
+
+    /**
+     * @param recorder - where to write each game (including the one on the board, if nobody has moved yet) when it is
+     *                 over or the board is reset, or null to stop recording.
+     */
+    public void setRecorder(GameRecordWriter recorder)
+    {
+        this.recorder = recorder;
+        if (recorder == null)
+            record = null;
+        else if (record == null && state.getTurn() == 0)
+            record = new GameRecord(state);
+    }
+
+    /**
+     * @param pondering - whether the computer should think about its next move while the human chooses theirs.
+     */
+    public void setPondering(boolean pondering)
+    {
+        if (pondering && ponderer == null)
+            ponderer = new Ponderer(() -> newEngine(PONDER_MILLIS_PER_REPLY));
+        else if (!pondering && ponderer != null)
+        {
+            ponderer.cancel();
+            ponderer = null;
+        }
+    }
+
+    /**
+     * makes the boxes bigger or smaller, keeping the human's box in view.
+     * @param steps - how many steps to zoom in (or out, if negative); each step is a quarter bigger or smaller.
+     */
+    public void zoomBy(int steps)
+    {
+        int newCellSize = cellSize;
+        for (int i = 0; i < Math.abs(steps); i++)
+            newCellSize = (steps > 0) ? newCellSize + Math.max(1, newCellSize / 4) : newCellSize * 4 / 5;
+        newCellSize = Math.max(MIN_CELL_SIZE, Math.min(MAX_CELL_SIZE, newCellSize));
+        if (newCellSize == cellSize)
+            return;
+        cellSize = newCellSize;
+        myFont = new Font("Arial", Font.BOLD, cellSize-10);
+        tiles = new BufferedImage[2][state.getMaxValue()+1];
+        revalidate();
+        repaint();
+        SwingUtilities.invokeLater(this::scrollToHuman);
+    }
+
+    /**
+     * @return - big enough to show the whole board at the current zoom (the frame puts us in a scroll pane, in case it
+     * doesn't fit on the screen).
+     */
+    public Dimension getPreferredSize()
+    {
+        return new Dimension(2*LEFT_MARGIN + state.getNumCols()*cellSize + 1,
+                2*TOP_MARGIN + state.getNumRows()*cellSize + 1);
     }
 
     /**
@@ -56,374 +194,398 @@ public class GamePanel extends JPanel
      * sets the HUMAN to move first, and updates the parent screen of any changes it needs to indicate.
      */
     public void reset() {
-        myGrid = new int[NUM_ROWS_AND_COLS][NUM_ROWS_AND_COLS];
-        for (int i = 1; i < NUM_ROWS_AND_COLS*NUM_ROWS_AND_COLS-1; i++)
-            myGrid[i/NUM_ROWS_AND_COLS][i%NUM_ROWS_AND_COLS] = (int)(Math.random()*90+10);
-        playerPositions[HUMAN][0] = 0;
-        playerPositions[HUMAN][1] = 0;
-        playerPositions[COMPUTER][0] = NUM_ROWS_AND_COLS-1;
-        playerPositions[COMPUTER][1] = NUM_ROWS_AND_COLS-1;
-        parent.activateArrows(checkForPossibleHumanMoves());
+        state.reset();
+        startGame();
+    }
+
+    /**
+     * forgets about the last game (if any) and gets ready for the human to make the first move in the one on the board
+     * now.
+     */
+    private void startGame()
+    {
+        cancelComputersTurn();
+        if (ponderer != null)
+            ponderer.cancel();
+        gameNumber++;
+        finishRecord();
+        if (recorder != null)
+            record = new GameRecord(state);
+        humansTurnStarted = System.nanoTime();
+        parent.activateArrows(state.checkForPossibleHumanMoves());
+        rememberWhatIsShown();
         repaint();
+        scrollToHuman();
         parent.updateIndicator(HUMAN);
-        scores = new int[2];
-        parent.updateScores(scores);
+        parent.updateScores(state.getScores());
     }
 
     /**
-     * draws the grid and player avatars.
+     * draws the grid and player avatars - or rather, just the cells that fall inside the area that needs painting (see
+     * repaintChangedCells()). Each cell is copied from a picture of it that we only draw once (see getTile()).
      * @param g the <code>Graphics</code> object to protect
      */
     public void paintComponent(Graphics g)
     {
         super.paintComponent(g);
-        for (int r = 0; r< NUM_ROWS_AND_COLS; r++)
-            for (int c=0; c<NUM_ROWS_AND_COLS; c++) {
-                // fill the alternating boxes
-                if ((r + c) % 2 == 0)
-                    g.setColor(Color.LIGHT_GRAY);
-                else
-                    g.setColor(Color.DARK_GRAY);
-                g.fillRect(LEFT_MARGIN + CELL_SIZE * c, TOP_MARGIN + CELL_SIZE * r, CELL_SIZE, CELL_SIZE);
-                // draw the box outlines
-                g.setColor(Color.BLACK);
-                g.drawRect(LEFT_MARGIN + CELL_SIZE * c, TOP_MARGIN + CELL_SIZE * r, CELL_SIZE, CELL_SIZE);
-                // draw numbers
-                if (myGrid[r][c] > 0) {
-                    if ((r + c) % 2 == 0)
-                        g.setColor(new Color(0,200, 0));
-                    else
-                        g.setColor(new Color(0, 96, 0));
-                    g.fillRect(LEFT_MARGIN + c * CELL_SIZE + 2, TOP_MARGIN + r * CELL_SIZE + 2,
-                            CELL_SIZE-4, CELL_SIZE-4);
-                    if ((r + c) % 2 == 0)
-                        g.setColor(Color.LIGHT_GRAY);
-                    else
-                        g.setColor(Color.DARK_GRAY);
-                    int size = (CELL_SIZE-4)*(100-myGrid[r][c])/100;
-                    g.fillRect(LEFT_MARGIN + c * CELL_SIZE + CELL_SIZE/2 - size/2,
-                               TOP_MARGIN + r * CELL_SIZE + CELL_SIZE/2 - size/2,
-                            size, size);
-                    g.setColor(Color.GRAY);
-                    g.setFont(myFont);
-                    int width = g.getFontMetrics(myFont).stringWidth("" + myGrid[r][c]);
-                    g.drawString("" + myGrid[r][c],
-                            LEFT_MARGIN + c * CELL_SIZE + (CELL_SIZE - width) / 2,
-                            TOP_MARGIN + (r + 1) * CELL_SIZE - 10);
-                }
-            }
-            // draw human avatar
-        g.drawImage(humanIcon,LEFT_MARGIN+playerPositions[HUMAN][1]*CELL_SIZE+5,
-                TOP_MARGIN+playerPositions[HUMAN][0]*CELL_SIZE+5, this);
+        Rectangle clip = g.getClipBounds();
+        if (clip == null)
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        int firstRow = Math.max(0, (clip.y - TOP_MARGIN) / cellSize - 1);
+        int lastRow = Math.min(state.getNumRows()-1, (clip.y + clip.height - TOP_MARGIN) / cellSize);
+        int firstCol = Math.max(0, (clip.x - LEFT_MARGIN) / cellSize - 1);
+        int lastCol = Math.min(state.getNumCols()-1, (clip.x + clip.width - LEFT_MARGIN) / cellSize);
+        for (int r = firstRow; r <= lastRow; r++)
+            for (int c = firstCol; c <= lastCol; c++)
+                g.drawImage(getTile(state.getValue(r, c), (r + c) % 2),
+                        LEFT_MARGIN + cellSize * c, TOP_MARGIN + cellSize * r, null);
+        // draw human avatar
+        int inset = cellSize / 12; // 5 pixels at the usual zoom
+        g.drawImage(humanIcon,LEFT_MARGIN+state.getPlayerPosition(HUMAN)[1]*cellSize+inset,
+                TOP_MARGIN+state.getPlayerPosition(HUMAN)[0]*cellSize+inset, cellSize-2*inset, cellSize-2*inset, this);
 //            g.setColor(Color.BLUE);
-//            g.fillOval(LEFT_MARGIN+playerPositions[HUMAN][1]*CELL_SIZE+5,
-//                    TOP_MARGIN+playerPositions[HUMAN][0]*CELL_SIZE+5,
+//            g.fillOval(LEFT_MARGIN+state.getPlayerPosition(HUMAN)[1]*CELL_SIZE+5,
+//                    TOP_MARGIN+state.getPlayerPosition(HUMAN)[0]*CELL_SIZE+5,
 //                    CELL_SIZE-10, CELL_SIZE-10);
-            // draw computer avatar
+        // draw computer avatar
 //            g.setColor(Color.RED);
-//            g.fillOval(LEFT_MARGIN+playerPositions[COMPUTER][1]*CELL_SIZE+5,
-//                    TOP_MARGIN+playerPositions[COMPUTER][0]*CELL_SIZE+5,
+//            g.fillOval(LEFT_MARGIN+state.getPlayerPosition(COMPUTER)[1]*CELL_SIZE+5,
+//                    TOP_MARGIN+state.getPlayerPosition(COMPUTER)[0]*CELL_SIZE+5,
 //                    CELL_SIZE-10, CELL_SIZE-10);
-            g.drawImage(robotIcon,LEFT_MARGIN+playerPositions[COMPUTER][1]*CELL_SIZE+5,
-                    TOP_MARGIN+playerPositions[COMPUTER][0]*CELL_SIZE+5, this);
-
+        g.drawImage(robotIcon,LEFT_MARGIN+state.getPlayerPosition(COMPUTER)[1]*cellSize+inset,
+                TOP_MARGIN+state.getPlayerPosition(COMPUTER)[0]*cellSize+inset, cellSize-2*inset, cellSize-2*inset,
+                this);
     }
 
     /**
-     * determines which direction(s) the player is allowed to move next turn. (This is used to deactivate the arrow
-     * buttons on the main screen for any that aren't legal.)
-     * This makes use of the constants:
-     * UP_FLAG = 1
-     * DOWN_FLAG = 2
-     * LEFT_FLAG = 4
-     * RIGHT_FLAG = 8
-     * @return the sum of the flags for which the player may move.
+     * @param value - the number showing in a cell, or 0 if there isn't one
+     * @param parity - (r + c) % 2, i.e., whether it is a light or a dark square
+     * @return - a picture of that cell, box outline and all (so it is one pixel bigger than cellSize each way).
      */
-    public int checkForPossibleHumanMoves()
+    private BufferedImage getTile(int value, int parity)
     {
-        int result = 0;
-        int humanRow = playerPositions[HUMAN][0];
-        int humanCol = playerPositions[HUMAN][1];
-        int computerRow = playerPositions[COMPUTER][0];
-        int computerCol = playerPositions[COMPUTER][1];
-
-        if (humanRow>0 && (humanCol != computerCol || humanRow-1 != computerRow))
-            result+= UP_FLAG;
-
-        if (humanCol>0 && (humanRow != computerRow || humanCol-1 != computerCol))
-            result+= LEFT_FLAG;
-
-        if (humanRow<NUM_ROWS_AND_COLS-1 && (humanCol != computerCol || humanRow+1 != computerRow))
-            result+= DOWN_FLAG;
+        if (tiles[parity][value] != null)
+            return tiles[parity][value];
+        BufferedImage tile = new BufferedImage(cellSize+1, cellSize+1, BufferedImage.TYPE_INT_RGB);
+        Graphics g = tile.getGraphics();
+        Color background = (parity == 0) ? Color.LIGHT_GRAY : Color.DARK_GRAY;
+        // fill the box
+        g.setColor(background);
+        g.fillRect(0, 0, cellSize, cellSize);
+        // draw the box outline
+        g.setColor(Color.BLACK);
+        g.drawRect(0, 0, cellSize, cellSize);
+        // draw the number - the bigger it is, the more of the box is green.
+        if (value > 0)
+        {
+            g.setColor((parity == 0) ? LIGHT_GREEN : DARK_GREEN);
+            g.fillRect(2, 2, cellSize-4, cellSize-4);
+            g.setColor(background);
+            int size = (int) ((long) (cellSize-4)*(state.getMaxValue()+1-value)/(state.getMaxValue()+1));
+            g.fillRect(cellSize/2 - size/2, cellSize/2 - size/2, size, size);
+            g.setColor(Color.GRAY);
+            String text = String.valueOf(value);
+            // shrink the font if the number is too wide for the box (e.g. a big number, or zoomed well out).
+            Font font = myFont;
+            int width = g.getFontMetrics(font).stringWidth(text);
+            if (width > cellSize-4)
+            {
+                font = myFont.deriveFont(Math.max(1f, myFont.getSize2D() * (cellSize-4) / width));
+                width = g.getFontMetrics(font).stringWidth(text);
+            }
+            g.setFont(font);
+            g.drawString(text, (cellSize - width) / 2, cellSize - cellSize / 6);
+        }
+        g.dispose();
+        tiles[parity][value] = tile;
+        return tile;
+    }
 
-        if (humanCol<NUM_ROWS_AND_COLS-1 && (humanRow != computerRow || humanCol+1 != computerCol))
-            result+= RIGHT_FLAG;
+    /**
+     * asks Swing to redraw only the cells whose number has changed, or that a player has stepped onto or off of, since
+     * we last asked. Only the cells that can be seen are checked; the rest are drawn fresh when they are scrolled to.
+     */
+    private void repaintChangedCells()
+    {
+        Rectangle visible = getVisibleRect();
+        int firstRow = Math.max(0, (visible.y - TOP_MARGIN) / cellSize - 1);
+        int lastRow = Math.min(state.getNumRows()-1, (visible.y + visible.height - TOP_MARGIN) / cellSize);
+        int firstCol = Math.max(0, (visible.x - LEFT_MARGIN) / cellSize - 1);
+        int lastCol = Math.min(state.getNumCols()-1, (visible.x + visible.width - LEFT_MARGIN) / cellSize);
+        for (int r = firstRow; r <= lastRow; r++)
+            for (int c = firstCol; c <= lastCol; c++)
+                if (shownValues[r][c] != state.getValue(r, c))
+                {
+                    repaintCell(r, c);
+                    shownValues[r][c] = state.getValue(r, c);
+                }
+        for (int player = HUMAN; player <= COMPUTER; player++)
+        {
+            int[] pos = state.getPlayerPosition(player);
+            if (pos[0] != shownPlayerPositions[player][0] || pos[1] != shownPlayerPositions[player][1])
+            {
+                repaintCell(shownPlayerPositions[player][0], shownPlayerPositions[player][1]);
+                repaintCell(pos[0], pos[1]);
+                shownPlayerPositions[player][0] = pos[0];
+                shownPlayerPositions[player][1] = pos[1];
+            }
+        }
+    }
 
-        return result;
+    private void repaintCell(int r, int c)
+    {
+        repaint(cellBounds(r, c));
     }
 
     /**
-     * follows the instructions in the MoveDescription to change the given player's position, "gobble" up any non-zero
-     * number in the destination grid, and update the score.
-     * @param move - a description of what to do.
+     * @return - the area of the panel that the given cell is drawn in.
      */
-    public void makeMove(MoveDescription move)
+    private Rectangle cellBounds(int r, int c)
     {
-        scores[move.getWhichPlayerIsMoving()]+=move.getWhatIsPickedUp();
-        playerPositions[move.getWhichPlayerIsMoving()] = move.getDestinationPos();
-        myGrid[move.getDestinationPos()[0]][move.getDestinationPos()[1]] = 0;
-        changeRewardsBy(-1);
+        return new Rectangle(LEFT_MARGIN + cellSize * c, TOP_MARGIN + cellSize * r, cellSize+1, cellSize+1);
     }
 
     /**
-     * reverses the instructions in the MoveDescription to change the given player's position back, "regurgitate"
-     * whatever number was captured (and return it to the board), and update the score after points are removed.
-     * @param move - a description of what to undo.
+     * scrolls the board (if it doesn't all fit) so that the human - and the cells around them - can be seen.
      */
-    public void undoMove(MoveDescription move)
+    private void scrollToHuman()
     {
-        scores[move.getWhichPlayerIsMoving()]-=move.getWhatIsPickedUp();
-        playerPositions[move.getWhichPlayerIsMoving()] = move.getStartPos();
-        changeRewardsBy(+1);
-        myGrid[move.getDestinationPos()[0]][move.getDestinationPos()[1]] = move.getWhatIsPickedUp();
+        int[] pos = state.getPlayerPosition(HUMAN);
+        Rectangle area = cellBounds(pos[0], pos[1]);
+        area.grow(cellSize, cellSize);
+        scrollRectToVisible(area);
     }
 
-    public void changeRewardsBy(int n)
+    private void rememberWhatIsShown()
     {
-        for (int r=0; r< myGrid.length; r++)
-            for (int c=0; c<myGrid[0].length; c++)
-                if (myGrid[r][c] != 0)
-                    myGrid[r][c] += n;
+        for (int r = 0; r < state.getNumRows(); r++)
+            for (int c = 0; c < state.getNumCols(); c++)
+                shownValues[r][c] = state.getValue(r, c);
+        for (int player = HUMAN; player <= COMPUTER; player++)
+        {
+            shownPlayerPositions[player][0] = state.getPlayerPosition(player)[0];
+            shownPlayerPositions[player][1] = state.getPlayerPosition(player)[1];
+        }
     }
 
     /**
      * The human has pressed one of the enabled buttons, and has requested that we change the position of the player.
      * (i.e., to make a move.)
-     * Generates a move description to correspond to this request and sends it to makeMove(). Also freezes the button,
-     * updates any indicators and tells the Timer to call computersTurn() in 0.1 seconds from now.
+     * Generates a move description to correspond to this request and sends it to the state's makeMove(). Also freezes
+     * the button, updates any indicators and has the computer's thread start computersTurn() on a copy of the board in
+     * 0.1 seconds from now.
      * @param deltaR - the requested change in the player's row
      * @param deltaC - the requested change in the player's column
      *
      */
     public void moveHumanBy(int deltaR, int deltaC)
     {
-        int[] destination = new int[2];
-        destination[0]=playerPositions[HUMAN][0] + deltaR;
-        destination[1]=playerPositions[HUMAN][1] + deltaC;
-        MoveDescription move = new MoveDescription(HUMAN,playerPositions[HUMAN],destination,
-                myGrid[destination[0]][destination[1]]);
-        myGrid[destination[0]][destination[1]]=0;
-        makeMove(move);
-        parent.updateScores(scores);
+        MoveDescription move = state.describeMove(HUMAN, deltaR, deltaC);
+        state.makeMove(move);
+        if (record != null)
+            record.addMove(move, System.nanoTime() - humansTurnStarted, 0);
+        scrollToHuman();
+        parent.updateScores(state.getScores());
         parent.activateArrows(0);
-        if (isGameOver())
+        if (state.isGameOver())
         {
+            finishRecord();
             parent.updateIndicator(-1);
-            repaint();
+            repaintChangedCells();
             return;
         }
         parent.updateIndicator(COMPUTER);
-        repaint();
+        repaintChangedCells();
         // this is a complicated compound statement that you don't need to know/understand, but it means to run
         // computersTurn() in a separate "thread" in 100 milliseconds from now.
-        computerTurnTimer.schedule(new TimerTask() {@Override public void run(){computersTurn();}}, 100);
+        Board snapshot = state.copy();
+        int game = gameNumber;
+        Ponderer pondering = ponderer;
+        computersTurn = computerThread.schedule(() -> computersTurn(snapshot, game, pondering), 100,
+                TimeUnit.MILLISECONDS);
     }
 
     /**
-     * Pick the best move for the computer. Make that move, update the scoreboard and indicators and activate the arrow
-     * buttons for the human player to indicate that it's the human's turn.
+     * Runs on the computer's thread. Pick the best move for the computer (or take the one the ponderer already found,
+     * if it did) and hand it to the Swing thread to make.
+     * @param snapshot - a private copy of the board, which nobody else is looking at
+     * @param game - which game (see reset()) the move is for
+     * @param pondering - the ponderer that was thinking during the human's turn, or null
      */
-    public void computersTurn()
+    private void computersTurn(Board snapshot, int game, Ponderer pondering)
     {
-        MoveDescription computersBestMove = bestMoveForComputer();
-        makeMove(computersBestMove);
-        parent.updateScores(scores);
-        if (isGameOver())
+        long start = System.nanoTime();
+        int depth = 0; // (we don't know how deep the ponderer looked.)
+        MoveDescription computersBestMove = null;
+        if (pondering != null)
+            computersBestMove = pondering.takeResult(snapshot);
+        if (computersBestMove == null)
         {
-            parent.updateIndicator(-1);
-            repaint();
-        }
-        else
-        {
-            parent.activateArrows(checkForPossibleHumanMoves());
-            parent.updateIndicator(HUMAN);
-            repaint();
+            Strategy engine = newEngine(COMPUTER_THINKING_MILLIS);
+            if (engine instanceof MiniMaxEngine minimax)
+                minimax.setStats(stats); // (only the computer's own searches - not the ponderer's.)
+            thinkingEngine = engine;
+            computersBestMove = engine.bestMoveForComputer(snapshot);
+            depth = engine.getDepthReached();
+            thinkingEngine = null;
+            if (engine.isStopped())
+                return;
         }
+        MoveDescription move = computersBestMove;
+        long nanos = System.nanoTime() - start;
+        int depthReached = depth;
+        SwingUtilities.invokeLater(() -> makeComputersMove(move, game, nanos, depthReached));
     }
 
     /**
-     * consider all the moves (N,S,E,W) that the computer might make this turn. For each one, determine its
-     * "score rating" (i.e. how much higher is the computer's score than the human's?) Pick the move that has the
-     * highest rating, and return it.
-     * @return the moveDescription that represents the optimal move for the computer
+     * @param millis - how long it may think about each move
+     * @return - a new engine to work out one of the computer's moves, set up the way the computer is playing now. The
+     * ponderer makes its engines here too, so that what it finds is what the computer would have found.
      */
-    public MoveDescription bestMoveForComputer()
+    private Strategy newEngine(long millis)
     {
-        ArrayList<MoveDescription> options = getPossibleMovesForPlayer(COMPUTER);
-        int bestRanking = -99999;
-        MoveDescription bestMove = options.get(0);
-        for (MoveDescription move :options)
-        {
-            int ranking = getLowestScoreRankingForHumanMove(move, MAX_STEPS_TO_LOOK);
-            if (ranking>bestRanking)
-            {
-                bestRanking = ranking;
-                bestMove = move;
-            }
-        }
-        return bestMove;
+        return (monteCarloThreads > 0) ? newMonteCarloEngine(millis) : newMiniMaxEngine(millis);
     }
 
     /**
-     * Temporarily make the human's move that was given.
-     * *
-     * If the number of steps left to look is zero, then find the score ranking (how much more the computer has than
-     * the player), undo the move, and return that ranking.
-     * *
-     * Otherwise, consider all the moves that the computer might make, and find their scores ranking (see next
-     * paragraph). Identify the highest score ranking -- i.e. the best value if the computer moves wisely.
-     * *
-     * But those rankings are determined by the best move that the human can make in response.... so we get them
-     * from calling the BestHumanMove in response to each of the potential Computer moves... but since we've just looked
-     * at a step, that should impact the numStepsLeftToLook that we send to that method.
-     * *
-     * Then undo the temporary move and return this highest ranking.
-     *
-     * @param move - a description of a move that the human might make.
-     * @param numStepsLeftToLook - how many more steps should we look ahead?
-     * @return the best score that we think the computer can get.
+     * @param millis - how long it may think about each move
+     * @return - a new engine to work out one of the computer's moves by minimax. (Its thinking is shared with the next
+     * one through the transposition table.)
      */
-    public int getHighestScoreRankingForComputerMove(MoveDescription move, int numStepsLeftToLook)
+    private MiniMaxEngine newMiniMaxEngine(long millis)
     {
-        // since this can get a little confusing, I'm making sure that you get the right kind of move here.
-        if(HUMAN != move.getWhichPlayerIsMoving())
-            throw new RuntimeException("Hey, the given move should be the human moving, then we're looking for a the" +
-                    " best computer move.\n"+move);
-
-        int scoreRanking = 0;
-        makeMove(move);
-        // TODO: Consider base case
-
-
-        // TODO: find all the possible MoveDescriptions that the computer might select. (Hint: there's a method for
-        //  this.)
-        //  Then loop through those options and call this method's twin, giving them one of the computer's moves, and
-        //  make sure that you are getting one step closer to the base case. Each time you do, you'll get a number.
-        //  You want to set scoreRanking to the largest of these numbers.
-
-
-        undoMove(move);
-        return scoreRanking;
+        MiniMaxEngine engine = new MiniMaxEngine();
+        engine.setTranspositionTable(table);
+        engine.setTimeBudget(millis);
+        engine.setEvaluator(new TerritoryEvaluator());
+        engine.setEndgameThreshold(ENDGAME_CELLS);
+        engine.setTablebase(tablebase);
+        engine.setOpeningBook(openingBook);
+        return engine;
     }
 
     /**
-     * Temporarily make the computer's move that is given.
-     * *
-     * If the number of steps left to look is zero, then find the score ranking (how much more the computer has than
-     * the player), undo the move, and return that ranking.
-     * *
-     * Otherwise, consider all the moves that the human might make, and consider their score ranking (see next
-     * paragraph). Since we assume that the human is smart (????), we'll guess that the human is going to pick the one
-     * with the lowest score ranking for the computer (i.e., the computer's score - human's score). So pick the lowest
-     * ranking.
-     * *
-     * But those rankings are determined by the best move that the computer can make in response.... so we get them
-     * from calling the BestComputerMove in response to each of the potential Human moves... but since we've just looked
-     * at a step, that should impact the numStepsLeftToLook that we send to that method.
-     * *
-     * Then undo the temporary move and return this lowest ranking.
-     *
-     * @param move a description of a move that the computer might make.
-     * @param numStepsLeftToLook - how many more steps should we look ahead?
-     * @return - the best score we think that the computer can get... given that the human is trying to make it low.
+     * @param millis - how long it may think about each move
+     * @return - a new engine to work out one of the computer's moves by Monte Carlo Tree Search.
      */
-    public int getLowestScoreRankingForHumanMove(MoveDescription move, int numStepsLeftToLook)
+    private MonteCarloEngine newMonteCarloEngine(long millis)
     {
-        // since this can get a little confusing, I'm making sure that you get the right kind of move here.
-        if(COMPUTER != move.getWhichPlayerIsMoving())
-            throw new RuntimeException("Hey, the given move should be the computer moving, then we're looking for a the" +
-                    " best human move.\n"+move);
-
-        int scoreRanking = 0;
-        makeMove(move);
-
-        // TODO: consider the base case for this method
-
-
-        // TODO: find all the possible MoveDescriptions that the human might select. (Hint: there's a method for
-        //  this.)
-        //  Then loop through those options and call this method's twin, giving them one of the human's moves, and
-        //  make sure that you are getting one step closer to the base case. Each time you do, you'll get a number.
-        //  You want to set scoreRanking to the smallest of these numbers.
-
-
-
-        undoMove(move);
-        return scoreRanking;
+        MonteCarloEngine engine = new MonteCarloEngine(monteCarloThreads);
+        engine.setTimeBudget(millis);
+        return engine;
     }
 
     /**
-     * determines whether the given player is at the given location (i.e., blocking the other player)
-     * @param whichPlayer - the player whose position we are wondering about
-     * @param pos - the location (row, col) under consideration
-     * @return - whether that player (human or computer) is in the given location
+     * stops the computer thinking about its move (if it is), and makes sure no move it has already found gets made.
      */
-    public boolean isPlayerInPosition(int whichPlayer, int[] pos)
+    private void cancelComputersTurn()
     {
-
-        return Arrays.equals(playerPositions[whichPlayer],pos);
-
+        if (computersTurn != null)
+            computersTurn.cancel(false);
+        Strategy engine = thinkingEngine;
+        if (engine != null)
+            engine.stop();
+        computersTurn = null;
     }
 
     /**
-     * is the given position one within the bounds of the game?
-     * @param position - a (row, col) to consider
-     * @return - whether it is in bounds.
+     * Runs on the Swing thread. Make the computer's move, start pondering the human's replies, update the scoreboard
+     * and indicators and activate the arrow buttons for the human player to indicate that it's the human's turn.
+     * @param computersBestMove - the move to make
+     * @param game - which game the move was worked out for; if the game has been reset since, the move is ignored.
+     * @param nanos - how long it took to work out (for the record)
+     * @param depth - how far ahead the search that found it looked (for the record)
      */
-    public boolean isInBounds(int[] position)
+    private void makeComputersMove(MoveDescription computersBestMove, int game, long nanos, int depth)
     {
-        return position[0]>-1 && position[1] >-1 && position[0] < NUM_ROWS_AND_COLS && position[1] < NUM_ROWS_AND_COLS;
+        if (game != gameNumber)
+            return;
+        computersTurn = null;
+        state.makeMove(computersBestMove);
+        if (record != null)
+            record.addMove(computersBestMove, nanos, depth);
+        humansTurnStarted = System.nanoTime();
+        if (ponderer != null && !state.isGameOver())
+            ponderer.start(state);
+        parent.updateScores(state.getScores());
+        if (state.isGameOver())
+        {
+            finishRecord();
+            parent.updateIndicator(-1);
+            repaintChangedCells();
+        }
+        else
+        {
+            parent.activateArrows(state.checkForPossibleHumanMoves());
+            parent.updateIndicator(HUMAN);
+            repaintChangedCells();
+        }
     }
 
     /**
-     * get a list of legal moves that the given player can make (in random order)
-     * @param whichPlayer - the player (HUMAN or COMPUTER) that we are considering
-     * @return - a List of MoveDescriptions, each one describing a legal move.
+     * hands the game recorded so far (if any, and if anybody has moved) to the recorder.
      */
-    public ArrayList<MoveDescription> getPossibleMovesForPlayer(int whichPlayer)
+    private void finishRecord()
     {
-        ArrayList<MoveDescription> options = new ArrayList<>();
-        for (int[] del: DELTAS)
+        if (record != null && record.getNumMoves() > 0)
         {
-            int[] candidatePosition = new int[2];
-            candidatePosition[0] = playerPositions[whichPlayer][0]+del[0];
-            candidatePosition[1] = playerPositions[whichPlayer][1]+del[1];
-
-            if (isInBounds(candidatePosition) && !isPlayerInPosition(1-whichPlayer,candidatePosition))
+            try
             {
-                options.add( new MoveDescription(whichPlayer,playerPositions[whichPlayer],candidatePosition,
-                        myGrid[candidatePosition[0]][candidatePosition[1]]));
+                recorder.write(record);
+            }
+            catch (IOException e)
+            {
+                throw new RuntimeException("Hey, I couldn't record the game.", e);
             }
         }
-        // shuffle the list by randomly removing items and putting them at the end of the list.
-        for (int i=0; i<8; i++)
+        record = null;
+    }
+
+    /**
+     * hands the game on the board to the recorder, even though it isn't over, and closes the recorder - so that when
+     * the program ends, every game played is in the file, whole. Call this when the window closes.
+     */
+    public void closeRecorder()
+    {
+        if (recorder == null)
+            return;
+        finishRecord();
+        try
         {
-            options.add(options.remove((int)(Math.random()*options.size())));
+            recorder.close();
         }
-        return options;
+        catch (IOException e)
+        {
+            System.err.println("Hey, I couldn't record the games: " + e);
+        }
+        recorder = null;
     }
 
     /**
-     * determines whether all the numbers have been "gobbled up."
-     * @return - whether all the values in myGrid are zero
+     * plays back a recorded game, one move every REPLAY_MILLIS_PER_MOVE, instead of letting the human play. (Reset
+     * stops it, and starts a new game as usual.)
+     * @param replay - the game; the board must be set up the way it started (see GameRecord.newBoard()).
      */
-    public boolean isGameOver()
+    public void replay(GameRecord replay)
     {
-        for (int[] row: myGrid)
-            for (int cell: row)
-                if (cell != 0)
-                    return false;
-        return true;
+        startGame();
+        record = null; // (a replay isn't a new game.)
+        parent.activateArrows(0);
+        int game = gameNumber;
+        Timer timer = new Timer(REPLAY_MILLIS_PER_MOVE, null);
+        timer.addActionListener(e ->
+        {
+            if (game != gameNumber || state.getTurn() == replay.getNumMoves())
+            {
+                timer.stop();
+                return;
+            }
+            state.makeMove(replay.getMove(state.getTurn(), state));
+            scrollToHuman();
+            parent.updateScores(state.getScores());
+            parent.updateIndicator(state.isGameOver() ? -1 : state.getTurn() % 2);
+            repaintChangedCells();
+        });
+        timer.start();
     }
-
 }
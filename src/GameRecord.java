@@ -0,0 +1,156 @@
+import java.util.Arrays;
+
+/**
+ * One game of "Gobble up!", from the start to the end (or as far as it got): the numbers the board started with, and
+ * for each move, which way the player stepped, how long they took to choose it and how far ahead the computer looked.
+ * GameRecordWriter writes these to a file and GameRecordReader reads them back, one game at a time.
+ * *
+ * The players always start in the corners (the human top left, the computer bottom right) and take turns, the human
+ * first, so a move only needs its direction - who made it and what they picked up follow from the board.
+ */
+public class GameRecord
+{
+    // the deepest search a record can tell apart; deeper ones are recorded as this deep.
+    public static final int MAX_DEPTH = 63;
+
+    private final int numRows, numCols, minValue, maxValue;
+    private final int[] startValues; // the number in each cell at the start, row by row
+    private byte[] directions = new byte[64]; // the index into GameState.DELTAS of each move
+    private byte[] depths = new byte[64]; // how far ahead the search for each move looked
+    private int[] micros = new int[64]; // how long each move took to choose, in microseconds
+    private int numMoves;
+
+    /**
+     * starts recording a game.
+     * @param board - the game, before anyone has moved
+     * @throws IllegalArgumentException if somebody has.
+     */
+    public GameRecord(Board board)
+    {
+        if (board.getTurn() != 0)
+            throw new IllegalArgumentException("Hey, a GameRecord has to start at the start of the game.");
+        numRows = board.getNumRows();
+        numCols = board.getNumCols();
+        minValue = board.getMinValue();
+        maxValue = board.getMaxValue();
+        startValues = new int[numRows * numCols];
+        for (int cell = 0; cell < startValues.length; cell++)
+            startValues[cell] = board.getStartValue(cell / numCols, cell % numCols);
+    }
+
+    /**
+     * for GameRecordReader: a game with no moves yet, starting with the given numbers.
+     */
+    GameRecord(int numRows, int numCols, int minValue, int maxValue, int[] startValues)
+    {
+        this.numRows = numRows;
+        this.numCols = numCols;
+        this.minValue = minValue;
+        this.maxValue = maxValue;
+        this.startValues = startValues;
+    }
+
+    /**
+     * adds the next move of the game.
+     * @param move - the move, as it was made
+     * @param nanos - how long it took to choose
+     * @param depth - how many steps ahead the search that chose it looked (0 for the human, or if it wasn't searched
+     *              just now - e.g. it was found while pondering, or looked up)
+     */
+    public void addMove(MoveDescription move, long nanos, int depth)
+    {
+        addMove(Move.getDirection(Move.fromDescription(move)), depth, (int) Math.min(Integer.MAX_VALUE, nanos / 1000));
+    }
+
+    void addMove(int direction, int depth, int micros)
+    {
+        if (numMoves == directions.length)
+        {
+            directions = Arrays.copyOf(directions, 2 * numMoves);
+            depths = Arrays.copyOf(depths, 2 * numMoves);
+            this.micros = Arrays.copyOf(this.micros, 2 * numMoves);
+        }
+        directions[numMoves] = (byte) direction;
+        depths[numMoves] = (byte) Math.min(depth, MAX_DEPTH);
+        this.micros[numMoves] = micros;
+        numMoves++;
+    }
+
+    /**
+     * @return - a new board set up the way this game started, to replay it on (see getMove()).
+     */
+    public GameState newBoard()
+    {
+        return new GameState(numRows, numCols, minValue, maxValue, startValues.clone());
+    }
+
+    /**
+     * @param i - which move (0 is the human's first)
+     * @param board - the board after all the moves before move i
+     * @return - move i, packed (see Move), ready for board.makeMove().
+     */
+    public int getMove(int i, Board board)
+    {
+        int whichPlayer = i % 2;
+        int[] pos = board.getPlayerPosition(whichPlayer);
+        int[] delta = GameState.DELTAS[directions[i]];
+        return Move.encode(whichPlayer, directions[i], board.getValue(pos[0] + delta[0], pos[1] + delta[1]));
+    }
+
+    public int getNumMoves()
+    {
+        return numMoves;
+    }
+
+    /**
+     * @return - the index into GameState.DELTAS of the way move i went.
+     */
+    public int getDirection(int i)
+    {
+        return directions[i];
+    }
+
+    /**
+     * @return - how far ahead the search for move i looked (0 for the human's moves).
+     */
+    public int getDepth(int i)
+    {
+        return depths[i];
+    }
+
+    /**
+     * @return - how long move i took to choose, in microseconds.
+     */
+    public int getMicros(int i)
+    {
+        return micros[i];
+    }
+
+    public int getNumRows()
+    {
+        return numRows;
+    }
+
+    public int getNumCols()
+    {
+        return numCols;
+    }
+
+    public int getMinValue()
+    {
+        return minValue;
+    }
+
+    public int getMaxValue()
+    {
+        return maxValue;
+    }
+
+    /**
+     * @return - the number in the given cell (row * numCols + col) at the start of the game.
+     */
+    public int getStartValue(int cell)
+    {
+        return startValues[cell];
+    }
+}
@@ -0,0 +1,147 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads back the games a GameRecordWriter wrote (see there for the format), one at a time, so that a file of millions
+ * of games can be gone through without ever holding more than one of them - e.g. to replay a game in the panel
+ * (APMiniMaxRunner replay=...) or to total things up over all of them.
+ * *
+ * Run by itself, it does the second: java GameRecordReader file
+ *     replays every game in the file and prints how many games and moves there were, the average final score margin
+ *     (computer - human), the average time per move for each side, and how long all that took.
+ */
+public class GameRecordReader implements AutoCloseable
+{
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+
+    /**
+     * @param file - a file written by GameRecordWriter
+     * @throws IOException if it can't be read, or isn't a file of game records.
+     */
+    public GameRecordReader(Path file) throws IOException
+    {
+        this.file = file;
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        buffer.flip(); // (empty, until the first read)
+        try
+        {
+            if (readInt() != GameRecordWriter.MAGIC || readInt() != GameRecordWriter.VERSION)
+                throw new IOException("Hey, " + file + " isn't a file of game records (or is from a different " +
+                        "version).");
+        }
+        catch (IOException e)
+        {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        long start = System.nanoTime();
+        long numGames = 0, numMoves = 0, totalMargin = 0;
+        long[] micros = new long[2], moves = new long[2];
+        try (GameRecordReader reader = new GameRecordReader(Path.of(args[0])))
+        {
+            for (GameRecord record = reader.next(); record != null; record = reader.next())
+            {
+                Board board = record.newBoard();
+                for (int i = 0; i < record.getNumMoves(); i++)
+                {
+                    board.makeMove(record.getMove(i, board));
+                    micros[i % 2] += record.getMicros(i);
+                    moves[i % 2]++;
+                }
+                numGames++;
+                numMoves += record.getNumMoves();
+                totalMargin += board.getScoreRanking();
+            }
+        }
+        System.out.printf("%d games, %d moves, average margin (computer - human) %.1f%n", numGames, numMoves,
+                numGames == 0 ? 0 : (double) totalMargin / numGames);
+        System.out.printf("average time per move: human %.2f ms, computer %.2f ms%n",
+                moves[0] == 0 ? 0 : micros[0] / 1000.0 / moves[0], moves[1] == 0 ? 0 : micros[1] / 1000.0 / moves[1]);
+        System.out.printf("read and replayed in %.2f s%n", (System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * @return - the next game in the file, or null if there aren't any more.
+     * @throws IOException if the file can't be read, or ends part way through a game.
+     */
+    public GameRecord next() throws IOException
+    {
+        if (!buffer.hasRemaining() && !fill())
+            return null;
+        int numRows = readVarint(), numCols = readVarint();
+        int minValue = readVarint(), maxValue = readVarint();
+        try
+        {
+            GameState.checkSize(numRows, numCols, minValue, maxValue);
+        }
+        catch (IllegalArgumentException e)
+        {
+            throw new IOException("Hey, " + file + " has a game that makes no sense in it.", e);
+        }
+        int[] startValues = new int[numRows * numCols];
+        for (int cell = 0; cell < startValues.length; cell++)
+            startValues[cell] = readVarint();
+        GameRecord record = new GameRecord(numRows, numCols, minValue, maxValue, startValues);
+        int numMoves = readVarint();
+        for (int i = 0; i < numMoves; i++)
+        {
+            int directionAndDepth = readByte();
+            record.addMove(directionAndDepth & 3, directionAndDepth >>> 2, readVarint());
+        }
+        return record;
+    }
+
+    public void close() throws IOException
+    {
+        channel.close();
+    }
+
+    /**
+     * reads some more of the file into the buffer (only when it has all been used).
+     * @return - false if the file has ended.
+     */
+    private boolean fill() throws IOException
+    {
+        buffer.clear();
+        int numRead = channel.read(buffer);
+        buffer.flip();
+        return numRead > 0;
+    }
+
+    private int readByte() throws IOException
+    {
+        if (!buffer.hasRemaining() && !fill())
+            throw new EOFException("Hey, " + file + " ends part way through a game.");
+        return buffer.get() & 0xFF;
+    }
+
+    private int readInt() throws IOException
+    {
+        return readByte() << 24 | readByte() << 16 | readByte() << 8 | readByte();
+    }
+
+    private int readVarint() throws IOException
+    {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7)
+        {
+            int b = readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+        throw new IOException("Hey, " + file + " has a number in it that is too long.");
+    }
+}
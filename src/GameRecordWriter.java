@@ -0,0 +1,170 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Appends GameRecords to a file, in a compact binary form that GameRecordReader reads back.
+ * *
+ * write() only hands the game over: a background thread of the writer's own packs it into a buffer and writes the
+ * buffer to the file's channel, so neither the Swing thread nor a search ever waits for the disk. The buffer goes to
+ * the disk when it is full, and whenever the thread runs out of games to pack - so under a heavy load (a Tournament,
+ * say) games go out in big batches, and a game from the panel is on the disk moments after it ends. Any number of
+ * threads may call write() at once; each game is written whole.
+ * *
+ * close() must be called when we are done: only then are the last games certain to be on the disk. Until then the
+ * writer's thread (which isn't a daemon) keeps the program running, so that a game can't be cut off half-written when
+ * the main thread ends.
+ * *
+ * The file starts with MAGIC and VERSION (ints), followed by the games. All the other numbers are "varints" - seven
+ * bits to a byte, low bits first, with the top bit set on every byte but the last - so that small numbers take one
+ * byte. Each game is:
+ *     numRows, numCols, minValue, maxValue
+ *     the number each cell started with, row by row (0 for none)
+ *     the number of moves
+ *     for each move, one byte - the direction (an index into GameState.DELTAS) plus 4 * how many steps ahead the search
+ *     looked - followed by how long the move took to choose, in microseconds
+ * A 6x6 game comes to about 150 bytes.
+ */
+public class GameRecordWriter implements AutoCloseable
+{
+    static final int MAGIC = 0x47424752; // "GBGR"
+    static final int VERSION = 1;
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    private final FileChannel channel;
+    private final BlockingQueue<Runnable> queue = new LinkedBlockingQueue<>(); // the games waiting to be packed
+    private final ExecutorService writerThread;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES); // only touched by the writer thread
+    private volatile IOException failure; // the first thing that went wrong writing, if anything has
+
+    /**
+     * opens a file to add games to, starting it if it is new or empty.
+     * @param file - where to write
+     * @throws IOException if it can't be opened, or already holds something other than games.
+     */
+    public GameRecordWriter(Path file) throws IOException
+    {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try
+        {
+            channel.position(channel.size()); // (we only ever add to the end.)
+            if (channel.size() == 0)
+            {
+                buffer.putInt(MAGIC).putInt(VERSION);
+                flush();
+            }
+            else
+            {
+                ByteBuffer header = ByteBuffer.allocate(2 * Integer.BYTES);
+                channel.read(header, 0);
+                if (header.flip().remaining() < header.capacity() || header.getInt() != MAGIC
+                        || header.getInt() != VERSION)
+                    throw new IOException("Hey, " + file + " isn't a file of game records (or is from a different " +
+                            "version).");
+            }
+        }
+        catch (IOException e)
+        {
+            channel.close();
+            throw e;
+        }
+        writerThread = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, queue,
+                Thread.ofPlatform().name("game records").factory());
+    }
+
+    /**
+     * adds a game to the file (soon - see the class comment).
+     * @param record - the game. Don't add any more moves to it afterward.
+     * @throws IOException if writing an earlier game failed.
+     */
+    public void write(GameRecord record) throws IOException
+    {
+        if (failure != null)
+            throw failure;
+        writerThread.execute(() -> pack(record));
+    }
+
+    /**
+     * writes out every game handed to write() so far, and closes the file. (Closing it again does nothing.)
+     * @throws IOException if any of them couldn't be written.
+     */
+    public void close() throws IOException
+    {
+        writerThread.shutdown();
+        try
+        {
+            writerThread.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+        if (failure != null)
+            throw failure;
+    }
+
+    /**
+     * runs on the writer thread: puts one game in the buffer.
+     */
+    private void pack(GameRecord record)
+    {
+        if (failure != null)
+            return;
+        try
+        {
+            putVarint(record.getNumRows());
+            putVarint(record.getNumCols());
+            putVarint(record.getMinValue());
+            putVarint(record.getMaxValue());
+            for (int cell = 0; cell < record.getNumRows() * record.getNumCols(); cell++)
+                putVarint(record.getStartValue(cell));
+            putVarint(record.getNumMoves());
+            for (int i = 0; i < record.getNumMoves(); i++)
+            {
+                if (!buffer.hasRemaining())
+                    flush();
+                buffer.put((byte) (record.getDirection(i) | record.getDepth(i) << 2));
+                putVarint(record.getMicros(i));
+            }
+            if (queue.isEmpty())
+                flush();
+        }
+        catch (IOException e)
+        {
+            failure = e;
+        }
+    }
+
+    private void putVarint(int value) throws IOException
+    {
+        while (true)
+        {
+            if (!buffer.hasRemaining())
+                flush();
+            if ((value & ~0x7F) == 0)
+            {
+                buffer.put((byte) value);
+                return;
+            }
+            buffer.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+    }
+
+    private void flush() throws IOException
+    {
+        buffer.flip();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        buffer.clear();
+    }
+}
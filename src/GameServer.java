@@ -0,0 +1,317 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hosts any number of games of "Gobble up!" at once, over TCP, for players that aren't a GamePanel - and so that we can
+ * find out how many games one machine can serve before the computer's moves get too slow (see ServerLoadBenchmark).
+ * *
+ * Each connection plays one game at a time on its own virtual thread, so thousands of connections, mostly waiting for
+ * their humans, cost very little. The searches - the only real work - are handed to one shared pool with a thread per
+ * processor, so however many games are going on, no more searches run at once than there are processors to run them,
+ * and the rest wait their turn. Each pool thread keeps one engine (with its TranspositionTable, or its trees) for as
+ * long as the server runs and searches with it for whichever game is next, so a new game costs a Board and nothing
+ * more.
+ * *
+ * The protocol is lines of text. The client sends a command, and the server answers every command with one line:
+ *     NEW [seed]   starts a new game, on a random board or the one that seed makes. The answer is
+ *                  "GAME numRows numCols minValue maxValue" followed by the number in each cell, row by row.
+ *     MOVE d       the human steps in direction d (an index into GameState.DELTAS). The answer is
+ *                  "OK humanScore computerScore", with " OVER" on the end if that was the last move.
+ *     COMPUTER     the computer moves. The answer is "MOVE d humanScore computerScore", with " OVER" likewise.
+ *     QUIT         closes the connection.
+ * Anything the server can't do (a move out of turn, say) is answered with "ERROR" and the reason, and the game goes on.
+ * *
+ * Usage: java GameServer [port=7878] [engine=time:50,eval] [threads=8] [size=6 or size=6x8] [values=10-99]
+ *     engine= is an engine set-up, as in Tournament; threads= is the size of the search pool (one per processor unless
+ *     we say otherwise).
+ */
+public class GameServer implements AutoCloseable
+{
+    public static final int DEFAULT_PORT = 7878;
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService searchPool;
+    private final ThreadLocal<Strategy> engines; // each search pool thread's engine
+    private final AtomicInteger numConnections = new AtomicInteger();
+    private int numRows = GameState.NUM_ROWS_AND_COLS, numCols = GameState.NUM_ROWS_AND_COLS;
+    private int minValue = GameState.MIN_VALUE, maxValue = GameState.MAX_VALUE;
+
+    /**
+     * opens the server's socket (on localhost only), but doesn't take any connections until start() or serve().
+     * @param port - the port to listen on, or 0 for any free one (see getPort())
+     * @param engineSpec - how to set up the engines, e.g. "time:50,eval" (see Tournament)
+     * @param numThreads - how many searches may run at once
+     * @throws IOException if the port can't be listened on.
+     */
+    public GameServer(int port, String engineSpec, int numThreads) throws IOException
+    {
+        Tournament.Player engineSetup = new Tournament.Player(engineSpec);
+        serverSocket = new ServerSocket(port, 0, InetAddress.getLoopbackAddress());
+        searchPool = Executors.newFixedThreadPool(numThreads);
+        engines = ThreadLocal.withInitial(() -> engineSetup.newEngine(0));
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        int port = DEFAULT_PORT;
+        String engineSpec = "time:" + GamePanel.COMPUTER_THINKING_MILLIS + ",eval";
+        int numThreads = Runtime.getRuntime().availableProcessors();
+        int numRows = GameState.NUM_ROWS_AND_COLS, numCols = GameState.NUM_ROWS_AND_COLS;
+        int minValue = GameState.MIN_VALUE, maxValue = GameState.MAX_VALUE;
+        for (String arg : args)
+        {
+            String value = arg.substring(arg.indexOf('=') + 1);
+            if (arg.startsWith("port="))
+                port = Integer.parseInt(value);
+            else if (arg.startsWith("engine="))
+                engineSpec = value;
+            else if (arg.startsWith("threads="))
+                numThreads = Integer.parseInt(value);
+            else if (arg.startsWith("size="))
+            {
+                String[] size = value.split("x");
+                numRows = Integer.parseInt(size[0]);
+                numCols = Integer.parseInt(size[size.length-1]);
+            }
+            else if (arg.startsWith("values="))
+            {
+                String[] range = value.split("-");
+                minValue = Integer.parseInt(range[0]);
+                maxValue = Integer.parseInt(range[1]);
+            }
+            else
+                throw new IllegalArgumentException("Hey, I don't know what \"" + arg + "\" means.");
+        }
+        try (GameServer server = new GameServer(port, engineSpec, numThreads))
+        {
+            server.setBoardSize(numRows, numCols, minValue, maxValue);
+            System.out.println("Serving games on port " + server.getPort() + " (engine " + engineSpec + ", " +
+                    numThreads + " search threads)");
+            server.serve();
+        }
+    }
+
+    /**
+     * @param numRows - how many rows the boards of new games have
+     * @param numCols - how many columns
+     * @param minValue - the smallest number on a new board
+     * @param maxValue - the largest
+     */
+    public void setBoardSize(int numRows, int numCols, int minValue, int maxValue)
+    {
+        GameState.checkSize(numRows, numCols, minValue, maxValue);
+        this.numRows = numRows;
+        this.numCols = numCols;
+        this.minValue = minValue;
+        this.maxValue = maxValue;
+    }
+
+    /**
+     * @return - the port the server is listening on.
+     */
+    public int getPort()
+    {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * @return - how many clients are connected right now.
+     */
+    public int getNumConnections()
+    {
+        return numConnections.get();
+    }
+
+    /**
+     * takes connections on a background (virtual) thread, until close().
+     */
+    public void start()
+    {
+        Thread.ofVirtual().name("game server").start(this::serve);
+    }
+
+    /**
+     * takes connections on this thread, until close(). Each connection is played on a virtual thread of its own.
+     */
+    public void serve()
+    {
+        while (!serverSocket.isClosed())
+        {
+            try
+            {
+                Socket socket = serverSocket.accept();
+                Thread.ofVirtual().name("game client " + socket.getPort()).start(() -> play(socket));
+            }
+            catch (IOException e)
+            {
+                if (!serverSocket.isClosed())
+                    System.err.println("Hey, a connection failed: " + e);
+            }
+        }
+    }
+
+    /**
+     * stops taking connections and stops the search pool. (Games in progress find out the next time the computer is
+     * asked to move.)
+     */
+    public void close() throws IOException
+    {
+        serverSocket.close();
+        searchPool.shutdownNow();
+    }
+
+    /**
+     * runs one connection: answers its commands until it says QUIT or goes away.
+     * @param socket - the connection
+     */
+    private void play(Socket socket)
+    {
+        numConnections.incrementAndGet();
+        try (socket)
+        {
+            socket.setTcpNoDelay(true); // (every answer is a short line that the client is waiting for.)
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                    StandardCharsets.US_ASCII));
+            PrintWriter out = new PrintWriter(socket.getOutputStream(), false, StandardCharsets.US_ASCII);
+            Board board = null;
+            for (String line = in.readLine(); line != null; line = in.readLine())
+            {
+                String[] words = line.trim().split("\\s+");
+                String answer;
+                try
+                {
+                    switch (words[0].toUpperCase())
+                    {
+                        case "NEW" ->
+                        {
+                            Random random = words.length > 1 ? new Random(Long.parseLong(words[1])) : new Random();
+                            board = new GameState(numRows, numCols, minValue, maxValue, random);
+                            answer = describeBoard(board);
+                        }
+                        case "MOVE" ->
+                        {
+                            makeHumansMove(board, words);
+                            answer = "OK" + describeScores(board);
+                        }
+                        case "COMPUTER" -> answer = "MOVE " + makeComputersMove(board) + describeScores(board);
+                        case "QUIT" ->
+                        {
+                            return;
+                        }
+                        default -> throw new IllegalArgumentException("Hey, I don't know what \"" + words[0] +
+                                "\" means.");
+                    }
+                }
+                catch (IllegalArgumentException | IllegalStateException e)
+                {
+                    answer = "ERROR " + e.getMessage();
+                }
+                out.println(answer);
+                out.flush();
+            }
+        }
+        catch (IOException | InterruptedException | RejectedExecutionException e)
+        {
+            // the client went away, or the server is closing: either way, this game is over.
+        }
+        finally
+        {
+            numConnections.decrementAndGet();
+        }
+    }
+
+    /**
+     * @param board - the game; it must be the human's turn
+     * @param words - the MOVE command, split into words
+     */
+    private static void makeHumansMove(Board board, String[] words)
+    {
+        checkTurn(board, GameState.HUMAN);
+        if (words.length < 2)
+            throw new IllegalArgumentException("Hey, which way? (MOVE 0 to 3 - see GameState.DELTAS)");
+        int direction = Integer.parseInt(words[1]);
+        int[] moves = new int[GameState.DELTAS.length];
+        int numMoves = board.generateMoves(GameState.HUMAN, moves, 0);
+        for (int i = 0; i < numMoves; i++)
+        {
+            if (Move.getDirection(moves[i]) == direction)
+            {
+                board.makeMove(moves[i]);
+                return;
+            }
+        }
+        throw new IllegalArgumentException("Hey, the human can't go that way.");
+    }
+
+    /**
+     * searches for the computer's move on the search pool (waiting for a pool thread if they are all busy), and makes
+     * it.
+     * @param board - the game; it must be the computer's turn
+     * @return - the direction the computer moved in
+     * @throws InterruptedException if the server is closing.
+     * @throws IllegalStateException if the search itself went wrong.
+     */
+    private int makeComputersMove(Board board) throws InterruptedException
+    {
+        checkTurn(board, GameState.COMPUTER);
+        MoveDescription move;
+        try
+        {
+            Board copy = board.copy(); // (so that a search that goes wrong can't leave the game half-searched.)
+            move = searchPool.submit(() -> engines.get().bestMoveForComputer(copy)).get();
+        }
+        catch (ExecutionException e)
+        {
+            // (an IllegalStateException, so that the client is told and the connection carries on.)
+            throw new IllegalStateException("Hey, the search failed: " + e.getCause(), e.getCause());
+        }
+        int packed = Move.fromDescription(move);
+        board.makeMove(packed);
+        return Move.getDirection(packed);
+    }
+
+    /**
+     * @param board - the game
+     * @param whichPlayer - whose turn it must be
+     * @throws IllegalStateException if there's no game, it is over, or it isn't their turn.
+     */
+    private static void checkTurn(Board board, int whichPlayer)
+    {
+        if (board == null)
+            throw new IllegalStateException("Hey, there's no game yet. (Send NEW to start one.)");
+        if (board.isGameOver())
+            throw new IllegalStateException("Hey, the game is over. (Send NEW to start another.)");
+        if (board.getTurn() % 2 != whichPlayer)
+            throw new IllegalStateException("Hey, it's the " + (whichPlayer == GameState.HUMAN ? "computer" :
+                    "human") + "'s turn.");
+    }
+
+    private static String describeBoard(Board board)
+    {
+        StringBuilder answer = new StringBuilder("GAME");
+        for (int number : new int[]{board.getNumRows(), board.getNumCols(), board.getMinValue(), board.getMaxValue()})
+            answer.append(' ').append(number);
+        for (int r = 0; r < board.getNumRows(); r++)
+            for (int c = 0; c < board.getNumCols(); c++)
+                answer.append(' ').append(board.getStartValue(r, c));
+        return answer.toString();
+    }
+
+    private static String describeScores(Board board)
+    {
+        int[] scores = board.getScores();
+        return " " + scores[GameState.HUMAN] + " " + scores[GameState.COMPUTER] + (board.isGameOver() ? " OVER" : "");
+    }
+}
@@ -0,0 +1,652 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * The numbers on the board, where the two players are standing and their scores - everything about a game of
+ * "Gobble up!" except how it is drawn. Nothing in here touches Swing or AWT, so a GameState can be created, copied and
+ * searched on any thread (or in a program that never opens a window at all).
+ * *
+ * This is the Board that stores the numbers in an int[][]. (See BitboardState and SparseState for the others.) The
+ * board is NUM_ROWS_AND_COLS square with numbers from MIN_VALUE to MAX_VALUE unless the constructor says otherwise.
+ */
+public class GameState implements Board
+{
+    // constants (thus the "final") ...................................................
+    public static final int NUM_ROWS_AND_COLS = 6;  // num boxes in grid, unless we are told otherwise
+    // the changes to a row, col to go up, left, down, right, respectively.
+    public static final int[][] DELTAS = {{-1,0},{0,-1},{+1,0},{0,+1}};
+    // the following "flags" describe which directions the human is allowed to move.
+    public static final int UP_FLAG = 1;
+    public static final int DOWN_FLAG = 2;
+    public static final int LEFT_FLAG = 4;
+    public static final int RIGHT_FLAG = 8;
+
+    // These are being used a LOT... for whose turn it is, which score goes up, which position to change, etc.
+    public static final int HUMAN = 0;
+    public static final int COMPUTER = 1;
+    // the numbers that reset() puts in the grid are in the range [MIN_VALUE, MAX_VALUE], unless we are told otherwise.
+    public static final int MIN_VALUE = 10;
+    public static final int MAX_VALUE = 99;
+    // .......................................................................................
+    // Class variables -----------------------------------------------------------------------
+    private final int numRows, numCols;
+    private final int minValue, maxValue; // the range of the numbers that reset() puts in the grid
+    // Every number on the board drops by one each turn. Rather than visiting every cell to do that, we store each
+    // cell's value as it was at turn zero and subtract the number of turns that have gone by when somebody asks for it.
+    // A stored zero means the cell has been gobbled up; a cell whose stored value is <= turn has simply run out.
+    private int[][] myGrid; // the numbers we're storing, as of turn zero.
+    private int turn; // how many moves have been made so far.
+    private int[] numCellsWithStartValue; // how many un-gobbled cells had each value at turn zero.
+    private int numLiveCells; // how many cells still show a non-zero number.
+    private long liveStartTotal; // the total of those cells' numbers at turn zero.
+    private final int[][] playerPositions;  // (HUMAN, COMPUTER) x (row, col)
+    private int[] scores;  // (HUMAN, COMPUTER)
+    // identifies this position (player positions, un-gobbled cells and turn) - see Zobrist. Kept up to date by
+    // makeMove() and undoMove(). Note that it does not include the scores.
+    private long zobristKey;
+
+    public GameState()
+    {
+        this(NUM_ROWS_AND_COLS, NUM_ROWS_AND_COLS, MIN_VALUE, MAX_VALUE);
+        reset();
+    }
+
+    /**
+     * makes a new game whose numbers come from the given seed - the same seed always gives the same board.
+     * @param seed - the seed for the random numbers in the grid
+     */
+    public GameState(long seed)
+    {
+        this(NUM_ROWS_AND_COLS, NUM_ROWS_AND_COLS, MIN_VALUE, MAX_VALUE);
+        reset(new Random(seed));
+    }
+
+    /**
+     * makes a new, randomly filled game of any size.
+     * @param numRows - how many rows of boxes
+     * @param numCols - how many columns of boxes
+     * @param minValue - the smallest number reset() puts in the grid (at least 1)
+     * @param maxValue - the biggest number reset() puts in the grid
+     * @param random - where the numbers come from
+     */
+    public GameState(int numRows, int numCols, int minValue, int maxValue, Random random)
+    {
+        this(numRows, numCols, minValue, maxValue);
+        reset(random);
+    }
+
+    /**
+     * makes a new game that starts with the given numbers - e.g. one read back from a GameRecord.
+     * @param numRows - how many rows of boxes
+     * @param numCols - how many columns of boxes
+     * @param minValue - the smallest number reset() puts in the grid (at least 1)
+     * @param maxValue - the biggest number reset() puts in the grid
+     * @param startValues - the number in each cell, row by row: zero, or from 1 to maxValue. The players' start cells
+     *                    (top left and bottom right) must be zero.
+     * @throws IllegalArgumentException if the numbers don't fit the board.
+     */
+    public GameState(int numRows, int numCols, int minValue, int maxValue, int[] startValues)
+    {
+        this(numRows, numCols, minValue, maxValue);
+        if (startValues.length != numRows*numCols || startValues[0] != 0 || startValues[startValues.length-1] != 0)
+            throw new IllegalArgumentException("Hey, those numbers don't fit a " + numRows + "x" + numCols +
+                    " board.");
+        for (int value : startValues)
+            if (value < 0 || value > maxValue)
+                throw new IllegalArgumentException("Hey, " + value + " can't be on a board with numbers up to " +
+                        maxValue + ".");
+        startWith(startValues);
+    }
+
+    /**
+     * makes a game that is already under way - e.g. a position from a log, to analyse. Only the parity of the turn
+     * matters from here on (every number just goes on dropping by one a turn), so the turn is 0 or 1, and the numbers
+     * on the board from reset() would go from 1 to one more than the biggest shown.
+     * @param numRows - how many rows of boxes
+     * @param numCols - how many columns of boxes
+     * @param values - the number each cell shows now, row by row (zero for none)
+     * @param playerPositions - (HUMAN, COMPUTER) x (row, col). They must be on different cells, which show zero.
+     * @param scores - (HUMAN, COMPUTER)
+     * @param whichPlayerToMove - HUMAN or COMPUTER
+     * @throws IllegalArgumentException if any of that doesn't fit the board.
+     */
+    public GameState(int numRows, int numCols, int[] values, int[][] playerPositions, int[] scores,
+                     int whichPlayerToMove)
+    {
+        this(numRows, numCols, 1, Arrays.stream(values).max().orElse(0) + 1);
+        if (values.length != numRows*numCols)
+            throw new IllegalArgumentException("Hey, those numbers don't fit a " + numRows + "x" + numCols +
+                    " board.");
+        if (whichPlayerToMove != HUMAN && whichPlayerToMove != COMPUTER)
+            throw new IllegalArgumentException("Hey, " + whichPlayerToMove + " isn't a player.");
+        int[] startValues = new int[values.length];
+        for (int i = 0; i < values.length; i++)
+        {
+            if (values[i] < 0)
+                throw new IllegalArgumentException("Hey, " + values[i] + " can't be on the board.");
+            startValues[i] = (values[i] == 0) ? 0 : values[i] + whichPlayerToMove;
+        }
+        startWith(startValues);
+        for (int player = HUMAN; player <= COMPUTER; player++)
+        {
+            if (!isInBounds(playerPositions[player]) || values[cellIndex(playerPositions[player])] != 0)
+                throw new IllegalArgumentException("Hey, a player can't stand at " +
+                        Arrays.toString(playerPositions[player]) + ".");
+            if (scores[player] < 0)
+                throw new IllegalArgumentException("Hey, a score of " + scores[player] + " is no good.");
+            this.playerPositions[player] = playerPositions[player].clone();
+        }
+        if (Arrays.equals(playerPositions[HUMAN], playerPositions[COMPUTER]))
+            throw new IllegalArgumentException("Hey, the players can't stand on the same cell.");
+        this.scores = scores.clone();
+        turn = whichPlayerToMove;
+        zobristKey = computeZobristKey();
+    }
+
+    private GameState(int numRows, int numCols, int minValue, int maxValue)
+    {
+        checkSize(numRows, numCols, minValue, maxValue);
+        this.numRows = numRows;
+        this.numCols = numCols;
+        this.minValue = minValue;
+        this.maxValue = maxValue;
+        playerPositions = new int[2][2];
+    }
+
+    /**
+     * makes sure a board of the given size makes sense (and that its numbers fit in a packed Move).
+     * @throws IllegalArgumentException if it doesn't.
+     */
+    static void checkSize(int numRows, int numCols, int minValue, int maxValue)
+    {
+        long numCells = (long) numRows * numCols;
+        if (numRows < 1 || numCols < 1 || numCells < 3 || numCells > Integer.MAX_VALUE / 2)
+            throw new IllegalArgumentException("Hey, a " + numRows + "x" + numCols + " board is no good.");
+        if (minValue < 1 || maxValue < minValue || maxValue > (Integer.MAX_VALUE >>> 3))
+            throw new IllegalArgumentException("Hey, numbers from " + minValue + " to " + maxValue + " are no good.");
+    }
+
+    /**
+     * makes an independent copy of another GameState, so that (for instance) a search can run on one thread while the
+     * original is being drawn on another.
+     * @param other - the state to copy
+     */
+    public GameState(GameState other)
+    {
+        numRows = other.numRows;
+        numCols = other.numCols;
+        minValue = other.minValue;
+        maxValue = other.maxValue;
+        myGrid = new int[other.myGrid.length][];
+        for (int r = 0; r < myGrid.length; r++)
+            myGrid[r] = other.myGrid[r].clone();
+        turn = other.turn;
+        numCellsWithStartValue = other.numCellsWithStartValue.clone();
+        numLiveCells = other.numLiveCells;
+        liveStartTotal = other.liveStartTotal;
+        playerPositions = new int[][]{other.playerPositions[HUMAN].clone(), other.playerPositions[COMPUTER].clone()};
+        scores = other.scores.clone();
+        zobristKey = other.zobristKey;
+    }
+
+    public Board copy()
+    {
+        return new GameState(this);
+    }
+
+    /**
+     * randomizes the numbers on the field, places the players in their start positions and resets the scores to zero.
+     */
+    public void reset()
+    {
+        reset(new Random());
+    }
+
+    /**
+     * the same as reset(), but taking the numbers from the given random number generator.
+     * @param random - where the numbers come from
+     */
+    public void reset(Random random)
+    {
+        int[] startValues = new int[numRows*numCols];
+        for (int i = 1; i < numRows*numCols-1; i++)
+            startValues[i] = random.nextInt(maxValue-minValue+1)+minValue;
+        startWith(startValues);
+    }
+
+    /**
+     * puts the given numbers on the field, places the players in their start positions and resets the scores to zero.
+     * @param startValues - the number in each cell, row by row (zero for none)
+     */
+    private void startWith(int[] startValues)
+    {
+        myGrid = new int[numRows][numCols];
+        numCellsWithStartValue = new int[maxValue+1];
+        numLiveCells = 0;
+        liveStartTotal = 0;
+        for (int i = 0; i < startValues.length; i++)
+        {
+            myGrid[i/numCols][i%numCols] = startValues[i];
+            if (startValues[i] != 0)
+            {
+                numCellsWithStartValue[startValues[i]]++;
+                numLiveCells++;
+                liveStartTotal += startValues[i];
+            }
+        }
+        turn = 0;
+        playerPositions[HUMAN] = new int[]{0, 0};
+        playerPositions[COMPUTER] = new int[]{numRows-1, numCols-1};
+        scores = new int[2];
+        zobristKey = computeZobristKey();
+    }
+
+    /**
+     * @param r - row
+     * @param c - column
+     * @return - the number currently shown in that cell (zero if it has been gobbled up or has run out)
+     */
+    public int getValue(int r, int c)
+    {
+        return Math.max(0, myGrid[r][c] - turn);
+    }
+
+    public int getStartValue(int r, int c)
+    {
+        return myGrid[r][c];
+    }
+
+    public int getNumRows()
+    {
+        return numRows;
+    }
+
+    public int getNumCols()
+    {
+        return numCols;
+    }
+
+    public int getMinValue()
+    {
+        return minValue;
+    }
+
+    public int getMaxValue()
+    {
+        return maxValue;
+    }
+
+    /**
+     * @return - a 64-bit number that identifies this position: where the players are, which cells are left and whose
+     * turn it is. Positions with the same key play out the same from here on, even if their scores differ.
+     */
+    public long getZobristKey()
+    {
+        return zobristKey;
+    }
+
+    /**
+     * @return - how many moves (by either player) have been made since the start of the game.
+     */
+    public int getTurn()
+    {
+        return turn;
+    }
+
+    /**
+     * @param whichPlayer - HUMAN or COMPUTER
+     * @return - the (row, col) where that player is standing. (This array changes as the player moves; clone it if you
+     * want to keep it.)
+     */
+    public int[] getPlayerPosition(int whichPlayer)
+    {
+        return playerPositions[whichPlayer];
+    }
+
+    /**
+     * @return - a two element array of (human score, computer score)
+     */
+    public int[] getScores()
+    {
+        return scores;
+    }
+
+    /**
+     * @return - how far ahead the computer is (computer's score - human's score). Negative if the human is winning.
+     */
+    public int getScoreRanking()
+    {
+        return scores[COMPUTER] - scores[HUMAN];
+    }
+
+    /**
+     * determines which direction(s) the human is allowed to move next turn.
+     * This makes use of the constants:
+     * UP_FLAG = 1
+     * DOWN_FLAG = 2
+     * LEFT_FLAG = 4
+     * RIGHT_FLAG = 8
+     * @return the sum of the flags for which the player may move.
+     */
+    public int checkForPossibleHumanMoves()
+    {
+        int result = 0;
+        int humanRow = playerPositions[HUMAN][0];
+        int humanCol = playerPositions[HUMAN][1];
+        int computerRow = playerPositions[COMPUTER][0];
+        int computerCol = playerPositions[COMPUTER][1];
+
+        if (humanRow>0 && (humanCol != computerCol || humanRow-1 != computerRow))
+            result+= UP_FLAG;
+
+        if (humanCol>0 && (humanRow != computerRow || humanCol-1 != computerCol))
+            result+= LEFT_FLAG;
+
+        if (humanRow<numRows-1 && (humanCol != computerCol || humanRow+1 != computerRow))
+            result+= DOWN_FLAG;
+
+        if (humanCol<numCols-1 && (humanRow != computerRow || humanCol+1 != computerCol))
+            result+= RIGHT_FLAG;
+
+        return result;
+    }
+
+    /**
+     * builds the MoveDescription for the given player stepping by (deltaR, deltaC) from where they are now.
+     * @param whichPlayer - HUMAN or COMPUTER
+     * @param deltaR - the requested change in the player's row
+     * @param deltaC - the requested change in the player's column
+     * @return - a description of that move, including what it would pick up.
+     */
+    public MoveDescription describeMove(int whichPlayer, int deltaR, int deltaC)
+    {
+        int[] destination = new int[2];
+        destination[0]=playerPositions[whichPlayer][0] + deltaR;
+        destination[1]=playerPositions[whichPlayer][1] + deltaC;
+        return new MoveDescription(whichPlayer,playerPositions[whichPlayer].clone(),destination,
+                getValue(destination[0], destination[1]));
+    }
+
+    /**
+     * follows the instructions in the MoveDescription to change the given player's position, "gobble" up any non-zero
+     * number in the destination grid, and update the score. (See makeMove(int).)
+     * @param move - a description of what to do.
+     */
+    public void makeMove(MoveDescription move)
+    {
+        makeMove(Move.fromDescription(move));
+    }
+
+    /**
+     * reverses the instructions in the MoveDescription. (See undoMove(int).)
+     * @param move - a description of what to undo.
+     */
+    public void undoMove(MoveDescription move)
+    {
+        undoMove(Move.fromDescription(move));
+    }
+
+    /**
+     * follows the instructions in the packed move to change the given player's position, "gobble" up any non-zero
+     * number in the destination grid, and update the score. Then every other number drops by one - which we get by
+     * advancing the turn counter, rather than by changing every cell.
+     * @param move - a packed move (see Move) made from this position.
+     */
+    public void makeMove(int move)
+    {
+        int player = Move.getWhichPlayerIsMoving(move);
+        int pickedUp = Move.getWhatIsPickedUp(move);
+        int[] pos = playerPositions[player];
+        int[] delta = DELTAS[Move.getDirection(move)];
+        int fromCell = pos[0]*numCols + pos[1];
+        pos[0] += delta[0];
+        pos[1] += delta[1];
+        int toCell = pos[0]*numCols + pos[1];
+        scores[player] += pickedUp;
+        zobristKey ^= Zobrist.positionKey(player, fromCell) ^ Zobrist.positionKey(player, toCell);
+        if (pickedUp > 0)
+        {
+            int startValue = myGrid[pos[0]][pos[1]];
+            zobristKey ^= Zobrist.cellKey(toCell, startValue);
+            numCellsWithStartValue[startValue]--;
+            numLiveCells--;
+            liveStartTotal -= startValue;
+            myGrid[pos[0]][pos[1]] = 0;
+        }
+        zobristKey ^= Zobrist.turnKey(turn) ^ Zobrist.turnKey(turn+1);
+        turn++;
+        // any cell that started with the value "turn" has just run out.
+        if (turn < numCellsWithStartValue.length)
+        {
+            numLiveCells -= numCellsWithStartValue[turn];
+            liveStartTotal -= (long) numCellsWithStartValue[turn] * turn;
+        }
+    }
+
+    /**
+     * reverses the packed move to change the given player's position back, "regurgitate" whatever number was captured
+     * (and return it to the board), and update the score after points are removed.
+     * @param move - the packed move that was the last one made.
+     */
+    public void undoMove(int move)
+    {
+        if (turn < numCellsWithStartValue.length)
+        {
+            numLiveCells += numCellsWithStartValue[turn];
+            liveStartTotal += (long) numCellsWithStartValue[turn] * turn;
+        }
+        turn--;
+        zobristKey ^= Zobrist.turnKey(turn+1) ^ Zobrist.turnKey(turn);
+        int player = Move.getWhichPlayerIsMoving(move);
+        int pickedUp = Move.getWhatIsPickedUp(move);
+        int[] pos = playerPositions[player];
+        int toCell = pos[0]*numCols + pos[1];
+        if (pickedUp > 0)
+        {
+            int startValue = pickedUp + turn;
+            myGrid[pos[0]][pos[1]] = startValue;
+            numCellsWithStartValue[startValue]++;
+            numLiveCells++;
+            liveStartTotal += startValue;
+            zobristKey ^= Zobrist.cellKey(toCell, startValue);
+        }
+        scores[player] -= pickedUp;
+        int[] delta = DELTAS[Move.getDirection(move)];
+        pos[0] -= delta[0];
+        pos[1] -= delta[1];
+        zobristKey ^= Zobrist.positionKey(player, toCell)
+                ^ Zobrist.positionKey(player, pos[0]*numCols + pos[1]);
+    }
+
+    /**
+     * works out the Zobrist key of this position from scratch (makeMove() and undoMove() keep it up to date after
+     * that).
+     * @return - the XOR of the keys for both players' positions, every un-gobbled cell and the turn.
+     */
+    public long computeZobristKey()
+    {
+        long key = Zobrist.turnKey(turn);
+        for (int player = HUMAN; player <= COMPUTER; player++)
+            key ^= Zobrist.positionKey(player, cellIndex(playerPositions[player]));
+        for (int r = 0; r < myGrid.length; r++)
+            for (int c = 0; c < myGrid[r].length; c++)
+                if (myGrid[r][c] != 0)
+                    key ^= Zobrist.cellKey(r*numCols + c, myGrid[r][c]);
+        return key;
+    }
+
+    /**
+     * @param pos - a (row, col)
+     * @return - a single number for that cell, counting across each row in turn.
+     */
+    public int cellIndex(int[] pos)
+    {
+        return pos[0]*numCols + pos[1];
+    }
+
+    /**
+     * determines whether the given player is at the given location (i.e., blocking the other player)
+     * @param whichPlayer - the player whose position we are wondering about
+     * @param pos - the location (row, col) under consideration
+     * @return - whether that player (human or computer) is in the given location
+     */
+    public boolean isPlayerInPosition(int whichPlayer, int[] pos)
+    {
+        return Arrays.equals(playerPositions[whichPlayer],pos);
+    }
+
+    /**
+     * is the given position one within the bounds of the game?
+     * @param position - a (row, col) to consider
+     * @return - whether it is in bounds.
+     */
+    public boolean isInBounds(int[] position)
+    {
+        return position[0]>-1 && position[1] >-1 && position[0] < numRows && position[1] < numCols;
+    }
+
+    /**
+     * get a list of legal moves that the given player can make (in random order)
+     * @param whichPlayer - the player (HUMAN or COMPUTER) that we are considering
+     * @return - a List of MoveDescriptions, each one describing a legal move.
+     */
+    public ArrayList<MoveDescription> getPossibleMovesForPlayer(int whichPlayer)
+    {
+        ArrayList<MoveDescription> options = new ArrayList<>();
+        for (int[] del: DELTAS)
+        {
+            int[] candidatePosition = new int[2];
+            candidatePosition[0] = playerPositions[whichPlayer][0]+del[0];
+            candidatePosition[1] = playerPositions[whichPlayer][1]+del[1];
+
+            if (isInBounds(candidatePosition) && !isPlayerInPosition(1-whichPlayer,candidatePosition))
+            {
+                options.add( new MoveDescription(whichPlayer,playerPositions[whichPlayer].clone(),candidatePosition,
+                        getValue(candidatePosition[0], candidatePosition[1])));
+            }
+        }
+        // shuffle the list by randomly removing items and putting them at the end of the list.
+        for (int i=0; i<8; i++)
+        {
+            options.add(options.remove((int)(Math.random()*options.size())));
+        }
+        return options;
+    }
+
+    /**
+     * get a list of legal moves that the given player can make, with the ones that gobble up the biggest numbers
+     * first. (Searching the most promising moves first lets alpha-beta pruning skip more of the others.)
+     * @param whichPlayer - the player (HUMAN or COMPUTER) that we are considering
+     * @return - a List of MoveDescriptions, each one describing a legal move, sorted by what they pick up.
+     */
+    public ArrayList<MoveDescription> getMovesByValueForPlayer(int whichPlayer)
+    {
+        int[] moves = new int[DELTAS.length];
+        int numMoves = generateMoves(whichPlayer, moves, 0);
+        ArrayList<MoveDescription> options = new ArrayList<>(numMoves);
+        for (int i = 0; i < numMoves; i++)
+            options.add(Move.toDescription(moves[i], this));
+        return options;
+    }
+
+    /**
+     * puts the legal moves for the given player into an array as packed moves (see Move), with the ones that gobble up
+     * the biggest numbers first. Nothing is allocated, so the search can call this as often as it likes.
+     * @param whichPlayer - the player (HUMAN or COMPUTER) that we are considering
+     * @param moves - where to put the moves; there must be room for four, starting at offset.
+     * @param offset - where in the array to put the first move
+     * @return - how many moves there were
+     */
+    public int generateMoves(int whichPlayer, int[] moves, int offset)
+    {
+        int row = playerPositions[whichPlayer][0];
+        int col = playerPositions[whichPlayer][1];
+        int[] otherPos = playerPositions[1-whichPlayer];
+        int numMoves = 0;
+        for (int direction = 0; direction < DELTAS.length; direction++)
+        {
+            int r = row + DELTAS[direction][0];
+            int c = col + DELTAS[direction][1];
+            if (r < 0 || c < 0 || r >= numRows || c >= numCols
+                    || (r == otherPos[0] && c == otherPos[1]))
+                continue;
+            int move = Move.encode(whichPlayer, direction, getValue(r, c));
+            // insertion sort - there are never more than four of these.
+            int i = offset + numMoves;
+            while (i > offset && Move.getWhatIsPickedUp(moves[i-1]) < Move.getWhatIsPickedUp(move))
+            {
+                moves[i] = moves[i-1];
+                i--;
+            }
+            moves[i] = move;
+            numMoves++;
+        }
+        return numMoves;
+    }
+
+    /**
+     * determines whether all the numbers have been "gobbled up."
+     * @return - whether all the values in myGrid are zero
+     */
+    public boolean isGameOver()
+    {
+        return numLiveCells == 0;
+    }
+
+    /**
+     * @return - how many more moves it will take for every number to run out, if nobody gobbles any of them. The game
+     * can't last any longer than this.
+     */
+    public int getTurnsUntilAllRunOut()
+    {
+        for (int value = numCellsWithStartValue.length-1; value > turn; value--)
+            if (numCellsWithStartValue[value] > 0)
+                return value - turn;
+        return 0;
+    }
+
+    /**
+     * @return - how many cells still show a non-zero number.
+     */
+    public int getNumLiveCells()
+    {
+        return numLiveCells;
+    }
+
+    /**
+     * @return - the total of all the numbers still shown: the most points that are left for both players together.
+     */
+    public int getRemainingTotal()
+    {
+        return (int) (liveStartTotal - (long) numLiveCells * turn);
+    }
+
+    /**
+     * @param whichPlayer - HUMAN or COMPUTER
+     * @return - the most points that player could gain from here, even if the other player gobbled nothing: a number
+     * d steps away can't be reached before the player's d-th move from now, and by then it has dropped by one for every
+     * turn in between. (It only looks at the cells near enough for a number to last the walk there.)
+     */
+    public int getMostPointsForOnePlayer(int whichPlayer)
+    {
+        int firstPly = (turn % 2 == whichPlayer) ? 0 : 1; // (how many turns until the player's first move.)
+        int pr = playerPositions[whichPlayer][0], pc = playerPositions[whichPlayer][1];
+        // a number v shown now is worth something only if the cell is less than (v - firstPly)/2 + 1 steps away, and
+        // no number shown now is bigger than maxValue - turn.
+        int reach = (maxValue - turn - firstPly + 1) / 2;
+        int total = 0;
+        for (int r = Math.max(0, pr - reach); r <= Math.min(numRows - 1, pr + reach); r++)
+        {
+            int across = reach - Math.abs(r - pr);
+            for (int c = Math.max(0, pc - across); c <= Math.min(numCols - 1, pc + across); c++)
+            {
+                int distance = Math.abs(r - pr) + Math.abs(c - pc);
+                int gain = myGrid[r][c] - turn - firstPly - 2 * (distance - 1);
+                if (myGrid[r][c] > turn && gain > 0)
+                    total += gain;
+            }
+        }
+        return total;
+    }
+}
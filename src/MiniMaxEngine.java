@@ -0,0 +1,877 @@
+import java.util.Random;
+
+/**
+ * Looks ahead through the possible moves of a Board (a GameState or a BitboardState) to find the best move for the
+ * computer. The engine only ever talks to the Board it is given, so it can run on any thread - but it does make and
+ * undo moves on that board while it thinks, so nobody else should be using the same Board at the same time.
+ * *
+ * By default the engine uses alpha-beta pruning: each twin method is told the window (alpha, beta) of rankings that
+ * could still change the decision above it, and stops looking at further moves as soon as it knows its answer falls
+ * outside that window. The answers are "fail-soft" - a cut-off method still returns the best bound it found, not just
+ * alpha or beta. Turning alpha-beta off gives the plain, full-width minimax search.
+ * *
+ * The engine also keeps a TranspositionTable of positions it has already searched, so that positions reached by
+ * different orders of moves are only searched once, and the best move found last time is tried first next time. The
+ * table stores scores relative to the score at that position (i.e. what is still to be won from here), since the same
+ * position can be reached with different scores. It is kept between calls to bestMoveForComputer().
+ * *
+ * Inside the search, moves are packed into ints (see Move) and kept in a preallocated move stack, so searching a node
+ * allocates nothing. Only the move that bestMoveForComputer() hands back is turned into a MoveDescription.
+ * *
+ * When the engine has looked as far ahead as it is going to, it judges the position by the score ranking so far - or,
+ * if it has been given an Evaluator, by what that guesses the final ranking will be. A better guess there lets a
+ * shallower search play as well as a deeper one.
+ * *
+ * Every call to bestMoveForComputer() is reported as a SearchEvent to Java Flight Recorder (when a recording wants
+ * it), and to an EngineStats (if the engine has been given one) for JMX.
+ * *
+ * Normally the engine looks a fixed number of steps ahead. If it is given a time budget and/or a node budget instead,
+ * it uses "iterative deepening": it searches 0 steps ahead, then 1, then 2... trying the best move from each search
+ * first in the next one, until the budget runs out. An unfinished search is thrown away, so the answer always comes
+ * from the deepest search that finished. (The 0-step search always finishes, so there is always an answer.) Another
+ * thread can also call stop() to end such a search early, e.g. when the engine is "pondering" (see Ponderer).
+ * *
+ * Iterative deepening doesn't always start from nothing. Each search that finishes leaves its root's score and best
+ * move in the transposition table, and so do the positions on the line it expected the game to follow. So when the
+ * human makes the reply the last search expected (or one a Ponderer sharing the table thought about), the table
+ * already holds an exact answer for the new position, a few steps deep, and the search starts one step deeper than
+ * that instead of at 0 - with the best moves of the rest of that line still in the table to try first.
+ * *
+ * At the start of the game, if the board is in the engine's OpeningBook, the move is looked up rather than searched.
+ * Near the end of the game there is no need to guess at all. Given an endgame threshold, the engine searches any
+ * position with that few cells left right to the end of the game, whatever its budget - with only a handful of cells
+ * that is quick, and the answer is exact. Given a Tablebase, it doesn't even search: it looks the moves up.
+ */
+public class MiniMaxEngine implements Strategy
+{
+    // How many steps ahead is the computer looking to try to find the best course of action?
+    public static final int MAX_STEPS_TO_LOOK = 5;
+    // bigger than any score difference we could ever see.
+    public static final int INFINITY = 99999;
+    // how much memory the transposition table gets unless we are told otherwise.
+    public static final int DEFAULT_TABLE_MEGABYTES = 16;
+    // positions with more cells left than this aren't worth asking getMostPointsForOnePlayer() about (see
+    // boundByWhatIsLeft()).
+    public static final int BOUND_LIVE_CELLS = 8;
+    // returned by lookUp() when the table can't settle the score for us.
+    private static final int NOT_FOUND = Integer.MIN_VALUE;
+    // how many nodes we visit between looks at the clock - System.nanoTime() isn't free.
+    private static final int NODES_BETWEEN_CLOCK_CHECKS = 256;
+    // room in the move stack for each ply - nobody ever has more than four moves.
+    private static final int MOVES_PER_PLY = 4;
+
+    private final int maxStepsToLook;
+    private boolean useAlphaBeta = true;
+    private Random random = new Random(); // used to pick between equally good moves.
+    private Board state; // the game we are currently thinking about.
+    private long nodesVisited; // how many moves the last search made (and undid).
+    private long nodesExpanded; // how many of those had their replies looked at
+    private long movesGenerated; // how many replies those nodes had between them
+    private long cutoffs; // how many times alpha-beta stopped looking at a node's remaining moves
+    private long boundCutoffs; // how many nodes weren't searched at all, because of what is left on the board
+    // the turn at the root of the current search, and how many turns it was then until every number ran out (so that
+    // boundByWhatIsLeft() knows whether the search can still reach a guess, without looking at the board).
+    private int rootTurn, turnsLeftAtRoot;
+    private EngineStats stats; // where to report each search, or null
+    private Evaluator evaluator; // judges the positions at the leaves of the search, or null for the score ranking
+    private int endgameCells; // positions with this many cells left (or fewer) are searched to the end of the game
+    private Tablebase tablebase; // where to look up the moves in positions it covers, or null
+    private OpeningBook openingBook; // where to look up the moves for the first few turns of some boards, or null
+    private TranspositionTable table = new TranspositionTable(DEFAULT_TABLE_MEGABYTES); // null to search without one.
+    private int hintedMove = TranspositionTable.NO_MOVE; // the best move that lookUp() found in the table, if any.
+    private long timeBudgetMillis; // how long we may think about a move (0 = no limit)
+    private long nodeBudget; // how many nodes we may visit for a move (0 = no limit)
+    private long deadline; // System.nanoTime() at which the time budget runs out
+    private boolean budgetActive; // whether the current search may be stopped by the budget
+    private boolean outOfBudget; // set when the budget runs out; the unfinished search then unwinds as fast as it can
+    private volatile boolean stopped; // set by stop(), from any thread; checked along with the clock
+    private int depthReached; // numStepsLeftToLook of the deepest search that finished last time
+    private int expectedRanking; // the final score ranking that search expects (see getExpectedRanking())
+    // the search keeps its (packed) moves here, MOVES_PER_PLY slots for each ply, rather than allocating lists.
+    private int[] moveStack = new int[(MAX_STEPS_TO_LOOK + 2) * MOVES_PER_PLY];
+    // the root moves tied for best in the last finished search, and in the one in progress.
+    private int[] bestRootMoves = new int[MOVES_PER_PLY];
+    private int[] deeperBestRootMoves = new int[MOVES_PER_PLY];
+
+    public MiniMaxEngine()
+    {
+        this(MAX_STEPS_TO_LOOK);
+    }
+
+    public MiniMaxEngine(int maxStepsToLook)
+    {
+        this.maxStepsToLook = maxStepsToLook;
+    }
+
+    /**
+     * @param useAlphaBeta - true to prune with alpha-beta; false for a plain minimax search of every move.
+     */
+    public void setUseAlphaBeta(boolean useAlphaBeta)
+    {
+        this.useAlphaBeta = useAlphaBeta;
+    }
+
+    /**
+     * makes the choice between equally good moves repeatable.
+     * @param seed - the seed for the random number generator that breaks ties.
+     */
+    public void setSeed(long seed)
+    {
+        random = new Random(seed);
+    }
+
+    /**
+     * limits how long the computer may think about each move. Setting either budget to something other than zero
+     * switches from a fixed MAX_STEPS_TO_LOOK search to iterative deepening.
+     * @param millis - wall-clock time per move in milliseconds, or 0 for no time limit.
+     */
+    public void setTimeBudget(long millis)
+    {
+        timeBudgetMillis = millis;
+    }
+
+    /**
+     * limits how many nodes the computer may visit for each move. See setTimeBudget().
+     * @param nodes - nodes per move, or 0 for no node limit.
+     */
+    public void setNodeBudget(long nodes)
+    {
+        nodeBudget = nodes;
+    }
+
+    /**
+     * tells this engine, from any thread, to treat its budget as used up - the search in progress (if any) and every
+     * later one give their answer from the deepest search that has finished so far. This only works with a time or
+     * node budget (see setTimeBudget()), and can't be undone: make a new engine instead.
+     */
+    public void stop()
+    {
+        stopped = true;
+    }
+
+    /**
+     * @return - whether stop() has been called on this engine.
+     */
+    public boolean isStopped()
+    {
+        return stopped;
+    }
+
+    /**
+     * @return - how many steps ahead (beyond the computer's own move) the most recent search looked, counting only
+     * searches that finished.
+     */
+    public int getDepthReached()
+    {
+        return depthReached;
+    }
+
+    /**
+     * @return - the final score ranking (the computer's score minus the human's) that the most recent search expects,
+     * if both players make the moves it thinks best - or, if it didn't look as far as the end of the game, its
+     * Evaluator's guess at it. (An opening book doesn't say, so for a move from the book it is the ranking so far.)
+     */
+    public int getExpectedRanking()
+    {
+        return expectedRanking;
+    }
+
+    /**
+     * @param table - the transposition table to use from now on, or null to search without one.
+     */
+    public void setTranspositionTable(TranspositionTable table)
+    {
+        this.table = table;
+    }
+
+    /**
+     * @return - the transposition table in use (so its hit rate etc. can be checked), or null if there isn't one.
+     */
+    public TranspositionTable getTranspositionTable()
+    {
+        return table;
+    }
+
+    /**
+     * @param evaluator - what to judge positions by when the search has looked as far ahead as it will (this engine's
+     *                  own - it will follow the moves made during the search), or null for the score ranking so far.
+     */
+    public void setEvaluator(Evaluator evaluator)
+    {
+        this.evaluator = evaluator;
+    }
+
+    /**
+     * @param cells - search positions with this many cells left, or fewer, right to the end of the game, however long
+     *              that takes. 0 (the default) never does; 4 or so is quick enough for a 6x6 board.
+     */
+    public void setEndgameThreshold(int cells)
+    {
+        endgameCells = cells;
+    }
+
+    /**
+     * @param tablebase - where to look up the best moves in the positions it covers instead of searching, or null.
+     */
+    public void setTablebase(Tablebase tablebase)
+    {
+        this.tablebase = tablebase;
+    }
+
+    /**
+     * @param openingBook - where to look up the moves in the positions it has, instead of searching, or null.
+     */
+    public void setOpeningBook(OpeningBook openingBook)
+    {
+        this.openingBook = openingBook;
+    }
+
+    /**
+     * @param stats - where to report the figures for each search from now on, or null to stop reporting them.
+     */
+    public void setStats(EngineStats stats)
+    {
+        this.stats = stats;
+    }
+
+    /**
+     * @return - the number of moves made (and undone) by the most recent search.
+     */
+    public long getNodesVisited()
+    {
+        return nodesVisited;
+    }
+
+    /**
+     * @return - the average number of moves at each node of the most recent search whose moves were looked at.
+     */
+    public double getBranchingFactor()
+    {
+        return nodesExpanded == 0 ? 0 : (double) movesGenerated / nodesExpanded;
+    }
+
+    /**
+     * @return - how many times the most recent search stopped looking at a node's remaining moves because of
+     * alpha-beta.
+     */
+    public long getCutoffs()
+    {
+        return cutoffs;
+    }
+
+    /**
+     * @return - how many positions the most recent search didn't search at all, because there weren't enough points
+     * left on the board to matter (see boundByWhatIsLeft()).
+     */
+    public long getBoundCutoffs()
+    {
+        return boundCutoffs;
+    }
+
+    /**
+     * consider all the moves (N,S,E,W) that the computer might make this turn. For each one, determine its
+     * "score rating" (i.e. how much higher is the computer's score than the human's?) Pick the move that has the
+     * highest rating, and return it. If several moves share the highest rating, pick one of them at random.
+     * @param gameState - the position to think about; it is returned to its original condition when we are done.
+     * @return the moveDescription that represents the optimal move for the computer
+     */
+    public MoveDescription bestMoveForComputer(Board gameState)
+    {
+        return bestMove(gameState, GameState.COMPUTER);
+    }
+
+    /**
+     * the same as bestMoveForComputer(), but for the human - picks the move with the lowest score rating. (So that the
+     * engine can play either side, e.g. against another engine in a Tournament.)
+     * @param gameState - the position to think about, with the human to move; it is returned to its original
+     *                  condition when we are done.
+     * @return the moveDescription that represents the optimal move for the human
+     */
+    public MoveDescription bestMoveForHuman(Board gameState)
+    {
+        return bestMove(gameState, GameState.HUMAN);
+    }
+
+    /**
+     * @param gameState - the position to think about, with the given player to move
+     * @param whichPlayer - HUMAN or COMPUTER
+     * @return - the best move for that player
+     */
+    private MoveDescription bestMove(Board gameState, int whichPlayer)
+    {
+        SearchEvent event = new SearchEvent();
+        event.begin();
+        long startTime = System.nanoTime();
+        long probesBefore = table == null ? 0 : table.getProbes();
+        long hitsBefore = table == null ? 0 : table.getHits();
+
+        state = gameState;
+        if (evaluator != null)
+            evaluator.attach(state);
+        resetCounters();
+        outOfBudget = false;
+        budgetActive = false;
+        rootTurn = state.getTurn();
+        turnsLeftAtRoot = state.getTurnsUntilAllRunOut();
+        int numBestMoves;
+        int bookEntry = lookUpInOpeningBook(whichPlayer);
+        if (bookEntry != OpeningBook.NOT_FOUND)
+        {
+            numBestMoves = 1;
+            depthReached = OpeningBook.getDepth(bookEntry);
+            expectedRanking = state.getScoreRanking();
+        }
+        else if (tablebase != null && tablebase.covers(state))
+        {
+            numBestMoves = tablebase.getBestMoves(state, bestRootMoves);
+            expectedRanking = tablebase.getFinalScoreRanking(state);
+            depthReached = Math.max(0, state.getTurnsUntilAllRunOut() - 1); // as good as a search to the end
+        }
+        else if (state.getNumLiveCells() <= endgameCells)
+        {
+            // after the computer's move, the game is over in at most this many more.
+            int stepsToTheEnd = Math.max(0, state.getTurnsUntilAllRunOut() - 1);
+            makeRoomToLook(stepsToTheEnd);
+            numBestMoves = getBestMovesLookingAhead(whichPlayer, stepsToTheEnd, TranspositionTable.NO_MOVE,
+                    bestRootMoves);
+            depthReached = stepsToTheEnd;
+        }
+        else if (timeBudgetMillis == 0 && nodeBudget == 0)
+        {
+            makeRoomToLook(maxStepsToLook);
+            numBestMoves = getBestMovesLookingAhead(whichPlayer, maxStepsToLook, TranspositionTable.NO_MOVE,
+                    bestRootMoves);
+            depthReached = maxStepsToLook;
+        }
+        else
+        {
+            deadline = System.nanoTime() + timeBudgetMillis * 1_000_000;
+            // there is no point looking further ahead than the end of the game.
+            int stepsUntilGameOver = state.getTurnsUntilAllRunOut();
+            makeRoomToLook(stepsUntilGameOver);
+            if (findEarlierSearch(whichPlayer))
+            {
+                // the table only keeps the one best move, so search the root again to the depth it was searched to -
+                // quick, with what that search left in the table - to find every move that is just as good, and
+                // choose between them at random like any other search. (If even that runs out of budget, the one
+                // move will do.)
+                budgetActive = true;
+                int numTiedMoves = getBestMovesLookingAhead(whichPlayer, depthReached,
+                        Move.getDirection(bestRootMoves[0]), deeperBestRootMoves);
+                numBestMoves = 1;
+                if (!outOfBudget)
+                {
+                    int[] swap = bestRootMoves;
+                    bestRootMoves = deeperBestRootMoves;
+                    deeperBestRootMoves = swap;
+                    numBestMoves = numTiedMoves;
+                }
+            }
+            else
+            {
+                numBestMoves = getBestMovesLookingAhead(whichPlayer, 0, TranspositionTable.NO_MOVE, bestRootMoves);
+                depthReached = 0;
+            }
+            budgetActive = true;
+            for (int steps = depthReached + 1; steps < stepsUntilGameOver; steps++)
+            {
+                int numDeeperBestMoves = getBestMovesLookingAhead(whichPlayer, steps,
+                        Move.getDirection(bestRootMoves[0]), deeperBestRootMoves);
+                if (outOfBudget)
+                    break;
+                int[] swap = bestRootMoves;
+                bestRootMoves = deeperBestRootMoves;
+                deeperBestRootMoves = swap;
+                numBestMoves = numDeeperBestMoves;
+                depthReached = steps;
+            }
+        }
+        MoveDescription bestMove = Move.toDescription(bestRootMoves[random.nextInt(numBestMoves)], state);
+        state = null;
+
+        event.end();
+        if (stats != null || event.shouldCommit())
+        {
+            long elapsed = System.nanoTime() - startTime;
+            long probes = table == null ? 0 : table.getProbes() - probesBefore;
+            double hitRate = probes == 0 ? 0 : (double) (table.getHits() - hitsBefore) / probes;
+            if (stats != null)
+                stats.record(nodesVisited, depthReached, getBranchingFactor(), cutoffs, hitRate, elapsed);
+            if (event.shouldCommit())
+            {
+                event.nodes = nodesVisited;
+                event.depth = depthReached;
+                event.branchingFactor = getBranchingFactor();
+                event.cutoffs = cutoffs;
+                event.tableHitRate = hitRate;
+                event.nodesPerSecond = elapsed == 0 ? 0 : nodesVisited * 1e9 / elapsed;
+                event.tableBytes = table == null ? 0 : table.getCapacity() * 16L;
+                event.commit();
+            }
+        }
+        return bestMove;
+    }
+
+    /**
+     * looks for the current position in the opening book and, if it is there, puts the book's move in bestRootMoves.
+     * @param whichPlayer - whose move it is
+     * @return - the book's entry for the position (see OpeningBook.lookUp()), or OpeningBook.NOT_FOUND.
+     */
+    private int lookUpInOpeningBook(int whichPlayer)
+    {
+        if (openingBook == null)
+            return OpeningBook.NOT_FOUND;
+        int entry = openingBook.lookUp(state.getZobristKey());
+        if (entry == OpeningBook.NOT_FOUND)
+            return entry;
+        int numMoves = state.generateMoves(whichPlayer, moveStack, 0);
+        for (int i = 0; i < numMoves; i++)
+            if (Move.getDirection(moveStack[i]) == OpeningBook.getDirection(entry))
+            {
+                bestRootMoves[0] = moveStack[i];
+                return entry;
+            }
+        return OpeningBook.NOT_FOUND; // (a different position that happens to have the same key.)
+    }
+
+    /**
+     * checks whether an earlier search has already searched the root position exactly - as the search for the
+     * computer's last move will have if the human has made the reply it expected, or as a Ponderer sharing our table
+     * may have - so that iterative deepening can carry on from there instead of starting again. If so, puts the move
+     * it found in bestRootMoves and sets depthReached and expectedRanking to how far it looked and what it found.
+     * (Only the one move: any others that were just as good have to be found again.)
+     * @param whichPlayer - whose move it is
+     * @return - whether it had.
+     */
+    private boolean findEarlierSearch(int whichPlayer)
+    {
+        if (table == null)
+            return false;
+        int slot = table.probe(state.getZobristKey());
+        // (the position was searched with numStepsLeftToLook = depth, so each of its moves was searched one less.)
+        if (slot < 0 || table.getBound(slot) != TranspositionTable.EXACT || table.getDepth(slot) < 2)
+            return false;
+        int numMoves = state.generateMoves(whichPlayer, moveStack, 0);
+        for (int i = 0; i < numMoves; i++)
+            if (Move.getDirection(moveStack[i]) == table.getBestMove(slot))
+            {
+                bestRootMoves[0] = moveStack[i];
+                depthReached = table.getDepth(slot) - 1;
+                expectedRanking = table.getScore(slot) + state.getScoreRanking();
+                return true;
+            }
+        return false;
+    }
+
+    private void resetCounters()
+    {
+        nodesVisited = 0;
+        nodesExpanded = 0;
+        movesGenerated = 0;
+        cutoffs = 0;
+        boundCutoffs = 0;
+    }
+
+    /**
+     * searches each of the given player's moves the given number of steps ahead.
+     * @param whichPlayer - whose move it is: COMPUTER looks for the highest score ranking, HUMAN for the lowest.
+     * @param numStepsLeftToLook - how far to look after each of the player's moves
+     * @param firstDirection - the direction of a move to search before the others (e.g. the best from a shallower
+     *                       search), or TranspositionTable.NO_MOVE.
+     * @param bestMoves - where to put the (packed) moves that share the best score ranking.
+     * @return - how many moves were put in bestMoves. (Meaningless if we ran out of budget part way.)
+     */
+    private int getBestMovesLookingAhead(int whichPlayer, int numStepsLeftToLook, int firstDirection,
+                                         int[] bestMoves)
+    {
+        hintedMove = firstDirection;
+        if (hintedMove == TranspositionTable.NO_MOVE && table != null)
+        {
+            int slot = table.probe(state.getZobristKey());
+            if (slot >= 0)
+                hintedMove = table.getBestMove(slot);
+        }
+        int numOptions = getMoves(whichPlayer, 0);
+        int numBestMoves = 0;
+        boolean computer = whichPlayer == GameState.COMPUTER;
+        int bestRanking = computer ? -INFINITY : INFINITY;
+        for (int i = 0; i < numOptions; i++)
+        {
+            int move = moveStack[i];
+            // looking one past the best so far means a move that ties the best gets an exact score, not a bound.
+            int ranking = computer
+                    ? getLowestScoreRankingForHumanMove(move, numStepsLeftToLook, bestRanking-1, INFINITY, 1)
+                    : getHighestScoreRankingForComputerMove(move, numStepsLeftToLook, -INFINITY, bestRanking+1, 1);
+            if (outOfBudget)
+                break;
+            if (computer ? ranking>bestRanking : ranking<bestRanking)
+            {
+                bestRanking = ranking;
+                numBestMoves = 0;
+            }
+            if (ranking == bestRanking)
+                bestMoves[numBestMoves++] = move;
+        }
+        // the best ranking is exact (each move was searched with a window just below it), so the next search of this
+        // position can start from here - see findEarlierSearch().
+        if (!outOfBudget && numBestMoves > 0)
+        {
+            expectedRanking = bestRanking;
+            record(numStepsLeftToLook + 1, -INFINITY, INFINITY, bestRanking, Move.getDirection(bestMoves[0]));
+        }
+        return numBestMoves;
+    }
+
+    /**
+     * scores one of the computer's moves in the given position, without any budget. (Used by ParallelSearch, which
+     * splits a search up between several engines.)
+     * @param gameState - the position the move is made from; it is returned to its original condition afterwards.
+     * @param move - a packed move (see Move) that the computer might make
+     * @param numStepsLeftToLook - how far to look after the move
+     * @param alpha - the bottom of the window (see getLowestScoreRankingForHumanMove)
+     * @param beta - the top of the window
+     * @return - the score ranking after that move, as getLowestScoreRankingForHumanMove() would find it.
+     */
+    public int scoreComputerMove(Board gameState, int move, int numStepsLeftToLook, int alpha, int beta)
+    {
+        startSubSearch(gameState, numStepsLeftToLook);
+        int ranking = getLowestScoreRankingForHumanMove(move, numStepsLeftToLook, alpha, beta, 1);
+        state = null;
+        return ranking;
+    }
+
+    /**
+     * the same as scoreComputerMove(), but for one of the human's moves.
+     * @param gameState - the position the move is made from; it is returned to its original condition afterwards.
+     * @param move - a packed move (see Move) that the human might make
+     * @param numStepsLeftToLook - how far to look after the move
+     * @param alpha - the bottom of the window (see getHighestScoreRankingForComputerMove)
+     * @param beta - the top of the window
+     * @return - the score ranking after that move, as getHighestScoreRankingForComputerMove() would find it.
+     */
+    public int scoreHumanMove(Board gameState, int move, int numStepsLeftToLook, int alpha, int beta)
+    {
+        startSubSearch(gameState, numStepsLeftToLook);
+        int ranking = getHighestScoreRankingForComputerMove(move, numStepsLeftToLook, alpha, beta, 1);
+        state = null;
+        return ranking;
+    }
+
+    private void startSubSearch(Board gameState, int numStepsLeftToLook)
+    {
+        state = gameState;
+        if (evaluator != null)
+            evaluator.attach(state);
+        resetCounters();
+        outOfBudget = false;
+        budgetActive = false;
+        rootTurn = state.getTurn();
+        turnsLeftAtRoot = state.getTurnsUntilAllRunOut();
+        hintedMove = TranspositionTable.NO_MOVE;
+        makeRoomToLook(numStepsLeftToLook);
+    }
+
+    /**
+     * makes sure the move stack is big enough to search this many steps ahead. (This is the only place the search
+     * allocates anything, and it only does so when we look further ahead than ever before.)
+     * @param numStepsLeftToLook - how far the search will look after the root move.
+     */
+    private void makeRoomToLook(int numStepsLeftToLook)
+    {
+        int needed = (numStepsLeftToLook + 2) * MOVES_PER_PLY;
+        if (moveStack.length < needed)
+            moveStack = new int[needed];
+    }
+
+    /**
+     * Temporarily make the human's move that was given.
+     * *
+     * If the number of steps left to look is zero (or the game is over), then find the score ranking (how much more
+     * the computer has than the player) - or, if the game isn't over and we have an Evaluator, its guess at the final
+     * ranking - undo the move, and return that ranking.
+     * *
+     * Otherwise, consider all the moves that the computer might make, and find their scores ranking by asking the
+     * twin method for the best human reply to each one. Identify the highest score ranking -- i.e. the best value if
+     * the computer moves wisely. (When alpha-beta is on, we stop looking at the computer's options as soon as one
+     * reaches beta - the human would never let the game get here.)
+     * *
+     * Then undo the temporary move and return this highest ranking.
+     *
+     * @param move - a packed move (see Move) that the human might make.
+     * @param numStepsLeftToLook - how many more steps should we look ahead?
+     * @param alpha - the computer can already guarantee at least this much elsewhere.
+     * @param beta - the human can already hold the computer to at most this much elsewhere.
+     * @param ply - how many moves deep in the search this move is (0 = the root); says where the computer's replies
+     *            go in the move stack.
+     * @return the best score that we think the computer can get; if it is >= beta, it is only a lower bound.
+     */
+    private int getHighestScoreRankingForComputerMove(int move, int numStepsLeftToLook, int alpha, int beta, int ply)
+    {
+        // since this can get a little confusing, I'm making sure that you get the right kind of move here.
+        if(GameState.HUMAN != Move.getWhichPlayerIsMoving(move))
+            throw new RuntimeException("Hey, the given move should be the human moving, then we're looking for a the" +
+                    " best computer move.\n"+Move.toDescription(move, state));
+
+        int scoreRanking;
+        state.makeMove(move);
+        if (evaluator != null)
+            evaluator.moveMade(state, move);
+        nodesVisited++;
+        if (budgetActive && isOutOfBudget())
+            scoreRanking = 0; // nobody will look at this - we are just getting out of here.
+        else if (state.isGameOver())
+            scoreRanking = state.getScoreRanking();
+        else if (numStepsLeftToLook == 0)
+            scoreRanking = (evaluator == null) ? state.getScoreRanking() : evaluator.evaluate(state);
+        else if ((scoreRanking = boundByWhatIsLeft(numStepsLeftToLook, alpha, beta)) == NOT_FOUND
+                && (scoreRanking = lookUp(numStepsLeftToLook, alpha, beta)) == NOT_FOUND)
+        {
+            int originalAlpha = alpha;
+            int bestDirection = TranspositionTable.NO_MOVE;
+            scoreRanking = -INFINITY;
+            int numOptions = getMoves(GameState.COMPUTER, ply);
+            for (int i = 0; i < numOptions; i++)
+            {
+                int computerMove = moveStack[ply * MOVES_PER_PLY + i];
+                int ranking = getLowestScoreRankingForHumanMove(computerMove, numStepsLeftToLook-1, alpha, beta,
+                        ply+1);
+                if (ranking > scoreRanking)
+                {
+                    scoreRanking = ranking;
+                    bestDirection = Move.getDirection(computerMove);
+                }
+                if (useAlphaBeta)
+                {
+                    alpha = Math.max(alpha, scoreRanking);
+                    if (alpha >= beta)
+                    {
+                        cutoffs++;
+                        break;
+                    }
+                }
+                if (outOfBudget)
+                    break;
+            }
+            if (!outOfBudget)
+                record(numStepsLeftToLook, originalAlpha, beta, scoreRanking, bestDirection);
+        }
+        state.undoMove(move);
+        if (evaluator != null)
+            evaluator.moveUndone(state, move);
+        return scoreRanking;
+    }
+
+    /**
+     * Temporarily make the computer's move that is given.
+     * *
+     * If the number of steps left to look is zero (or the game is over), then find the score ranking (how much more
+     * the computer has than the player) - or, if the game isn't over and we have an Evaluator, its guess at the final
+     * ranking - undo the move, and return that ranking.
+     * *
+     * Otherwise, consider all the moves that the human might make, and consider their score ranking by asking the
+     * twin method for the best computer reply to each one. Since we assume that the human is smart (????), we'll
+     * guess that the human is going to pick the one with the lowest score ranking for the computer (i.e., the
+     * computer's score - human's score). So pick the lowest ranking. (When alpha-beta is on, we stop looking at the
+     * human's options as soon as one gets down to alpha - the computer already has a better choice.)
+     * *
+     * Then undo the temporary move and return this lowest ranking.
+     *
+     * @param move a packed move (see Move) that the computer might make.
+     * @param numStepsLeftToLook - how many more steps should we look ahead?
+     * @param alpha - the computer can already guarantee at least this much elsewhere.
+     * @param beta - the human can already hold the computer to at most this much elsewhere.
+     * @param ply - how many moves deep in the search this move is (0 = the root); says where the human's replies go
+     *            in the move stack.
+     * @return - the lowest score the human can hold the computer to; if it is <= alpha, it is only an upper bound.
+     */
+    private int getLowestScoreRankingForHumanMove(int move, int numStepsLeftToLook, int alpha, int beta, int ply)
+    {
+        // since this can get a little confusing, I'm making sure that you get the right kind of move here.
+        if(GameState.COMPUTER != Move.getWhichPlayerIsMoving(move))
+            throw new RuntimeException("Hey, the given move should be the computer moving, then we're looking for a the" +
+                    " best human move.\n"+Move.toDescription(move, state));
+
+        int scoreRanking;
+        state.makeMove(move);
+        if (evaluator != null)
+            evaluator.moveMade(state, move);
+        nodesVisited++;
+        if (budgetActive && isOutOfBudget())
+            scoreRanking = 0; // nobody will look at this - we are just getting out of here.
+        else if (state.isGameOver())
+            scoreRanking = state.getScoreRanking();
+        else if (numStepsLeftToLook == 0)
+            scoreRanking = (evaluator == null) ? state.getScoreRanking() : evaluator.evaluate(state);
+        else if ((scoreRanking = boundByWhatIsLeft(numStepsLeftToLook, alpha, beta)) == NOT_FOUND
+                && (scoreRanking = lookUp(numStepsLeftToLook, alpha, beta)) == NOT_FOUND)
+        {
+            int originalBeta = beta;
+            int bestDirection = TranspositionTable.NO_MOVE;
+            scoreRanking = INFINITY;
+            int numOptions = getMoves(GameState.HUMAN, ply);
+            for (int i = 0; i < numOptions; i++)
+            {
+                int humanMove = moveStack[ply * MOVES_PER_PLY + i];
+                int ranking = getHighestScoreRankingForComputerMove(humanMove, numStepsLeftToLook-1, alpha, beta,
+                        ply+1);
+                if (ranking < scoreRanking)
+                {
+                    scoreRanking = ranking;
+                    bestDirection = Move.getDirection(humanMove);
+                }
+                if (useAlphaBeta)
+                {
+                    beta = Math.min(beta, scoreRanking);
+                    if (alpha >= beta)
+                    {
+                        cutoffs++;
+                        break;
+                    }
+                }
+                if (outOfBudget)
+                    break;
+            }
+            if (!outOfBudget)
+                record(numStepsLeftToLook, alpha, originalBeta, scoreRanking, bestDirection);
+        }
+        state.undoMove(move);
+        if (evaluator != null)
+            evaluator.moveUndone(state, move);
+        return scoreRanking;
+    }
+
+    /**
+     * puts the legal moves for the given player into this ply's part of the move stack, biggest gobbles first, except
+     * that the move hintedMove says was best last time (if any) goes first.
+     * @param whichPlayer - HUMAN or COMPUTER
+     * @param ply - which part of the move stack to use
+     * @return - how many moves there are.
+     */
+    private int getMoves(int whichPlayer, int ply)
+    {
+        int offset = ply * MOVES_PER_PLY;
+        int numMoves = state.generateMoves(whichPlayer, moveStack, offset);
+        nodesExpanded++;
+        movesGenerated += numMoves;
+        if (hintedMove != TranspositionTable.NO_MOVE)
+            for (int i = offset + 1; i < offset + numMoves; i++)
+                if (Move.getDirection(moveStack[i]) == hintedMove)
+                {
+                    int hinted = moveStack[i];
+                    System.arraycopy(moveStack, offset, moveStack, offset + 1, i - offset);
+                    moveStack[offset] = hinted;
+                    break;
+                }
+        hintedMove = TranspositionTable.NO_MOVE;
+        return numMoves;
+    }
+
+    /**
+     * @return - whether the time or node budget has run out, or we have been told to stop(). (Once it has, it stays
+     * that way for the rest of this search.)
+     */
+    private boolean isOutOfBudget()
+    {
+        if (!outOfBudget)
+            outOfBudget = (nodeBudget > 0 && nodesVisited > nodeBudget)
+                    || (nodesVisited % NODES_BETWEEN_CLOCK_CHECKS == 0
+                        && (stopped || (timeBudgetMillis > 0 && System.nanoTime() > deadline)));
+        return outOfBudget;
+    }
+
+    /**
+     * checks whether there are enough points left on the board to matter: if, whatever happens from here, the final
+     * ranking must come out on one side of the window, there is no need to search the position at all.
+     * *
+     * Nobody can gain more than the total of the numbers still shown (getRemainingTotal(), which costs nothing to
+     * ask). When that isn't enough to settle it, we ask each player's getMostPointsForOnePlayer(), which is a lot
+     * smaller late in the game: the numbers keep dropping while the players walk to them, so the ones that are far
+     * away or small will be gone before anyone gets there. That costs a look at the board, though, and earlier on it
+     * hardly ever settles anything, so we only ask once there are no more than BOUND_LIVE_CELLS cells left.
+     * *
+     * An Evaluator's guesses at the leaves needn't stay inside these limits, so with one we only do this once the
+     * search is going to reach the end of the game anyway (and no guesses will be made below here). And with
+     * alpha-beta off, there is no window to be outside of.
+     * @param numStepsLeftToLook - how deep we are about to search from here
+     * @param alpha - the bottom of the current window
+     * @param beta - the top of the current window
+     * @return - the lowest final ranking there can be from here if it is >= beta, or the highest if it is <= alpha
+     * (a fail-soft bound, just like a cut-off search would return); otherwise NOT_FOUND.
+     */
+    private int boundByWhatIsLeft(int numStepsLeftToLook, int alpha, int beta)
+    {
+        if (!useAlphaBeta)
+            return NOT_FOUND;
+        // (the numbers run out at least one turn sooner for every move made since the root.)
+        if (evaluator != null && numStepsLeftToLook < turnsLeftAtRoot - (state.getTurn() - rootTurn))
+            return NOT_FOUND;
+        int ranking = state.getScoreRanking();
+        int computerGains = state.getRemainingTotal(), humanGains = computerGains;
+        if (ranking - humanGains < beta && ranking + computerGains > alpha
+                && state.getNumLiveCells() <= BOUND_LIVE_CELLS)
+        {
+            computerGains = state.getMostPointsForOnePlayer(GameState.COMPUTER);
+            humanGains = state.getMostPointsForOnePlayer(GameState.HUMAN);
+        }
+        if (ranking - humanGains >= beta)
+        {
+            boundCutoffs++;
+            return ranking - humanGains;
+        }
+        if (ranking + computerGains <= alpha)
+        {
+            boundCutoffs++;
+            return ranking + computerGains;
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * checks the transposition table for the current position. Also sets hintedMove to the best move stored for it.
+     * @param numStepsLeftToLook - how deep we are about to search from here
+     * @param alpha - the bottom of the current window
+     * @param beta - the top of the current window
+     * @return - the score from the table if it was searched at least this deep and its score settles the question for
+     * this window; otherwise NOT_FOUND.
+     */
+    private int lookUp(int numStepsLeftToLook, int alpha, int beta)
+    {
+        hintedMove = TranspositionTable.NO_MOVE;
+        if (table == null)
+            return NOT_FOUND;
+        int slot = table.probe(state.getZobristKey());
+        if (slot < 0)
+            return NOT_FOUND;
+        hintedMove = table.getBestMove(slot);
+        if (table.getDepth(slot) < numStepsLeftToLook)
+            return NOT_FOUND;
+        int score = table.getScore(slot) + state.getScoreRanking();
+        int bound = table.getBound(slot);
+        if (bound == TranspositionTable.EXACT
+                || (bound == TranspositionTable.LOWER_BOUND && score >= beta)
+                || (bound == TranspositionTable.UPPER_BOUND && score <= alpha))
+            return score;
+        return NOT_FOUND;
+    }
+
+    /**
+     * stores what we just found out about the current position in the transposition table.
+     * @param numStepsLeftToLook - how deep we searched from here
+     * @param alpha - the bottom of the window we were given
+     * @param beta - the top of the window we were given
+     * @param score - what the search found
+     * @param bestDirection - the index into GameState.DELTAS of the best move found
+     */
+    private void record(int numStepsLeftToLook, int alpha, int beta, int score, int bestDirection)
+    {
+        if (table == null)
+            return;
+        int bound = TranspositionTable.EXACT;
+        if (score <= alpha)
+            bound = TranspositionTable.UPPER_BOUND;
+        else if (score >= beta)
+            bound = TranspositionTable.LOWER_BOUND;
+        table.store(state.getZobristKey(), numStepsLeftToLook, bound, score - state.getScoreRanking(),
+                bestDirection);
+    }
+}
@@ -0,0 +1,352 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Chooses moves by Monte Carlo Tree Search (UCT) instead of minimax. Rather than looking a fixed number of steps ahead
+ * through every move - which costs about 4^steps, and on a big board never gets near the end of the game - it plays
+ * thousands of quick random games ("playouts") from the position to the very end, and counts how often each move led
+ * to a win. A tree of the positions it has seen grows as it goes: each playout first walks down the tree, choosing at
+ * each position the move with the best mix of "has won often" and "hasn't been tried much", then adds the position it
+ * reaches to the tree and plays out the rest at random. So the moves that look good get looked at more, and more
+ * deeply, and the engine can use however much time it is given: more time just means more playouts.
+ * *
+ * The tree lives in flat arrays of primitives (one entry per node, with each node's children next to each other), not
+ * in node objects, and the arrays are kept from one move to the next. A playout only makes and undoes moves on the
+ * Board, with a preallocated move stack, and draws its random numbers from a SplittableRandom of its own, so the search
+ * allocates nothing once the arrays are big enough. The random playouts aren't quite uniform: half the time, a player
+ * gobbles the biggest number it can, which makes the playouts a lot more like real games for the cost of one random
+ * number.
+ * *
+ * Given more than one thread, it searches "root-parallel": each thread grows a tree of its own, on its own copy of the
+ * board and with its own random numbers, and at the end the visits to each move are added up over all the trees. The
+ * threads share nothing while they search, so there are no locks to wait on.
+ * *
+ * It stops when its time budget or its playout budget (whichever it is given) runs out, or when stop() is called, and
+ * picks the move that was visited the most.
+ */
+public class MonteCarloEngine implements Strategy
+{
+    // if the engine isn't given a budget, how many playouts it makes for each move.
+    public static final int DEFAULT_PLAYOUTS = 10000;
+    // how much the search favours moves it hasn't tried much over moves that have won often (the UCT constant).
+    public static final double EXPLORATION = 0.7;
+    // in a playout, how often (in percent) a player gobbles the biggest number it can rather than moving at random.
+    public static final int GREEDY_PERCENT = 50;
+    // the most nodes one tree may have; after that, the tree stops growing and the search just goes on playing out.
+    public static final int MAX_NODES = 1 << 22;
+
+    private final Tree[] trees;
+    private long timeBudgetMillis, playoutBudget;
+    private SplittableRandom random = new SplittableRandom();
+    private volatile boolean stopped;
+    private int depthReached;
+    private long playouts;
+
+    public MonteCarloEngine()
+    {
+        this(1);
+    }
+
+    /**
+     * @param numThreads - how many threads to search with (each with its own tree)
+     */
+    public MonteCarloEngine(int numThreads)
+    {
+        if (numThreads < 1)
+            throw new IllegalArgumentException("Hey, a MonteCarloEngine needs at least one thread.");
+        trees = new Tree[numThreads];
+        for (int i = 0; i < numThreads; i++)
+            trees[i] = new Tree();
+    }
+
+    /**
+     * makes the engine's choices repeatable (if it has a playout budget rather than a time budget).
+     * @param seed - the seed for the random numbers the playouts use.
+     */
+    public void setSeed(long seed)
+    {
+        random = new SplittableRandom(seed);
+    }
+
+    /**
+     * @param millis - how long to think about each move, in milliseconds, or 0 for no time limit.
+     */
+    public void setTimeBudget(long millis)
+    {
+        timeBudgetMillis = millis;
+    }
+
+    /**
+     * @param playouts - how many playouts to make for each move (shared between the threads), or 0 for no limit. With
+     *                 neither budget, the engine makes DEFAULT_PLAYOUTS.
+     */
+    public void setPlayoutBudget(long playouts)
+    {
+        playoutBudget = playouts;
+    }
+
+    public void stop()
+    {
+        stopped = true;
+    }
+
+    public boolean isStopped()
+    {
+        return stopped;
+    }
+
+    /**
+     * @return - how deep the deepest path through the tree went, in the most recent search.
+     */
+    public int getDepthReached()
+    {
+        return depthReached;
+    }
+
+    /**
+     * @return - how many playouts the most recent search made, over all its threads.
+     */
+    public long getPlayouts()
+    {
+        return playouts;
+    }
+
+    public MoveDescription bestMoveForComputer(Board board)
+    {
+        return bestMove(board, GameState.COMPUTER);
+    }
+
+    public MoveDescription bestMoveForHuman(Board board)
+    {
+        return bestMove(board, GameState.HUMAN);
+    }
+
+    /**
+     * @param board - the position to think about, with the given player to move; it is returned to its original
+     *              condition when we are done.
+     * @param whichPlayer - HUMAN or COMPUTER
+     * @return - the move that was visited most, over all the trees.
+     */
+    private MoveDescription bestMove(Board board, int whichPlayer)
+    {
+        if (board.getTurn() % 2 != whichPlayer)
+            throw new IllegalArgumentException("Hey, it isn't that player's turn.");
+        long budget = playoutBudget;
+        if (budget == 0 && timeBudgetMillis == 0)
+            budget = DEFAULT_PLAYOUTS;
+        long budgetPerTree = (budget == 0) ? Long.MAX_VALUE : Math.max(1, budget / trees.length);
+        long deadline = (timeBudgetMillis == 0) ? Long.MAX_VALUE : System.nanoTime() + timeBudgetMillis * 1_000_000;
+
+        Thread[] helpers = new Thread[trees.length - 1];
+        for (int i = 0; i < helpers.length; i++)
+        {
+            Tree tree = trees[i + 1];
+            Board copy = board.copy();
+            tree.random = random.split();
+            helpers[i] = Thread.ofPlatform().name("monte carlo " + (i + 1)).start(() ->
+                    tree.search(copy, deadline, budgetPerTree));
+        }
+        trees[0].random = random.split();
+        trees[0].search(board, deadline, budgetPerTree);
+        for (Thread helper : helpers)
+        {
+            try
+            {
+                helper.join();
+            }
+            catch (InterruptedException e)
+            {
+                stop();
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        // add up the visits to each move (by direction) over all the trees.
+        long[] visits = new long[GameState.DELTAS.length];
+        double[] wins = new double[GameState.DELTAS.length];
+        playouts = 0;
+        depthReached = 0;
+        for (Tree tree : trees)
+        {
+            for (int child = tree.firstChild[0]; child < tree.firstChild[0] + tree.numChildren[0]; child++)
+            {
+                int direction = Move.getDirection(tree.moves[child]);
+                visits[direction] += tree.visits[child];
+                wins[direction] += tree.wins[child];
+            }
+            playouts += tree.visits[0];
+            depthReached = Math.max(depthReached, tree.depthReached);
+        }
+        int[] moves = new int[GameState.DELTAS.length];
+        int numMoves = board.generateMoves(whichPlayer, moves, 0);
+        int best = moves[0];
+        for (int i = 1; i < numMoves; i++)
+        {
+            int direction = Move.getDirection(moves[i]), bestDirection = Move.getDirection(best);
+            if (visits[direction] > visits[bestDirection] || (visits[direction] == visits[bestDirection]
+                    && wins[direction] > wins[bestDirection]))
+                best = moves[i];
+        }
+        return Move.toDescription(best, board);
+    }
+
+    /**
+     * one search tree, and everything one thread needs to grow it. Node 0 is the root; each node's children are
+     * numChildren[node] consecutive nodes starting at firstChild[node].
+     */
+    private class Tree
+    {
+        int[] moves = new int[1024];       // the (packed) move that leads to each node from its parent
+        int[] firstChild = new int[1024];  // where each node's children start
+        byte[] numChildren = new byte[1024]; // how many children each node has (0 until it is expanded)
+        int[] visits = new int[1024];      // how many playouts have gone through each node
+        float[] wins = new float[1024];    // how many of them the player who made the node's move won (a draw is 1/2)
+        int numNodes;
+        int[] path = new int[64];          // the nodes the current playout went through, from the root down
+        int[] moveStack = new int[64];     // the moves the current playout made after leaving the tree
+        final int[] generated = new int[GameState.DELTAS.length];
+        SplittableRandom random;
+        int depthReached;
+
+        /**
+         * grows the tree from scratch, until the budget runs out.
+         * @param board - the position at the root; it is returned to its original condition when we are done.
+         * @param deadline - System.nanoTime() to stop at
+         * @param budget - how many playouts to make, at most
+         */
+        void search(Board board, long deadline, long budget)
+        {
+            numNodes = 1;
+            moves[0] = 0;
+            numChildren[0] = 0;
+            visits[0] = 0;
+            wins[0] = 0;
+            depthReached = 0;
+            int longestGame = board.getTurnsUntilAllRunOut() + 1;
+            if (path.length < longestGame)
+            {
+                path = new int[longestGame];
+                moveStack = new int[longestGame];
+            }
+            expand(0, board);
+            for (long playout = 0; playout < budget && !stopped; playout++)
+            {
+                if ((playout & 63) == 0 && System.nanoTime() >= deadline)
+                    break;
+                playOnce(board);
+            }
+        }
+
+        /**
+         * one playout: down the tree, add a node, play out the rest at random, and count the result in every node on
+         * the way.
+         */
+        private void playOnce(Board board)
+        {
+            int node = 0, depth = 0;
+            path[depth++] = 0;
+            while (numChildren[node] > 0)
+            {
+                node = selectChild(node);
+                board.makeMove(moves[node]);
+                path[depth++] = node;
+            }
+            if (visits[node] > 0 && !board.isGameOver() && expand(node, board))
+            {
+                node = firstChild[node]; // (never visited, so as good as any of its brothers.)
+                board.makeMove(moves[node]);
+                path[depth++] = node;
+            }
+            depthReached = Math.max(depthReached, depth - 1);
+
+            double computerResult = playOut(board);
+            for (int i = depth - 1; i >= 0; i--)
+            {
+                node = path[i];
+                visits[node]++;
+                if (i > 0)
+                {
+                    boolean computerMoved = Move.getWhichPlayerIsMoving(moves[node]) == GameState.COMPUTER;
+                    wins[node] += (float) (computerMoved ? computerResult : 1 - computerResult);
+                    board.undoMove(moves[node]);
+                }
+            }
+        }
+
+        /**
+         * @return - the child of the given node with the best upper confidence bound (or the first one that hasn't
+         * been visited yet).
+         */
+        private int selectChild(int node)
+        {
+            double logVisits = Math.log(visits[node]);
+            int best = firstChild[node];
+            double bestBound = -1;
+            for (int child = firstChild[node]; child < firstChild[node] + numChildren[node]; child++)
+            {
+                if (visits[child] == 0)
+                    return child;
+                double bound = wins[child] / visits[child] + EXPLORATION * Math.sqrt(logVisits / visits[child]);
+                if (bound > bestBound)
+                {
+                    bestBound = bound;
+                    best = child;
+                }
+            }
+            return best;
+        }
+
+        /**
+         * gives a node a child for every move from its position.
+         * @return - false if the tree is full.
+         */
+        private boolean expand(int node, Board board)
+        {
+            int whichPlayer = board.getTurn() % 2;
+            int numMoves = board.generateMoves(whichPlayer, generated, 0);
+            if (numNodes + numMoves > moves.length)
+            {
+                if (numNodes + numMoves > MAX_NODES)
+                    return false;
+                int capacity = Math.min(MAX_NODES, 2 * moves.length);
+                moves = Arrays.copyOf(moves, capacity);
+                firstChild = Arrays.copyOf(firstChild, capacity);
+                numChildren = Arrays.copyOf(numChildren, capacity);
+                visits = Arrays.copyOf(visits, capacity);
+                wins = Arrays.copyOf(wins, capacity);
+            }
+            firstChild[node] = numNodes;
+            for (int i = 0; i < numMoves; i++)
+            {
+                moves[numNodes] = generated[i];
+                numChildren[numNodes] = 0;
+                visits[numNodes] = 0;
+                wins[numNodes] = 0;
+                numNodes++;
+            }
+            numChildren[node] = (byte) numMoves;
+            return numMoves > 0;
+        }
+
+        /**
+         * plays (mostly) random moves from here to the end of the game, then takes them all back.
+         * @return - 1 if the computer won, 0 if the human did, 1/2 for a draw.
+         */
+        private double playOut(Board board)
+        {
+            int numMoves = 0;
+            while (!board.isGameOver())
+            {
+                int numGenerated = board.generateMoves(board.getTurn() % 2, generated, 0);
+                int move = (random.nextInt(100) < GREEDY_PERCENT) ? generated[0]
+                        : generated[random.nextInt(numGenerated)];
+                board.makeMove(move);
+                moveStack[numMoves++] = move;
+            }
+            int ranking = board.getScoreRanking();
+            while (numMoves > 0)
+                board.undoMove(moveStack[--numMoves]);
+            return ranking > 0 ? 1 : ranking < 0 ? 0 : 0.5;
+        }
+    }
+}
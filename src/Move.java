@@ -0,0 +1,70 @@
+/**
+ * Packs everything about a move into a single int, so that the search can keep its moves in plain int[] arrays instead
+ * of creating a MoveDescription for each one:
+ *     bit   0     which player is moving (GameState.HUMAN or GameState.COMPUTER)
+ *     bits  1-2   which way they step (an index into GameState.DELTAS)
+ *     bits  3-31  the number they pick up
+ * The start position isn't stored - it is wherever the player is standing when the move is made - so a packed move
+ * only makes sense in the position it was generated for. MoveDescription is still what the rest of the program (the
+ * panel, and anyone calling MiniMaxEngine.bestMoveForComputer()) sees; toDescription() and fromDescription() convert.
+ */
+public final class Move
+{
+    private Move()
+    {
+    }
+
+    /**
+     * @param whichPlayer - HUMAN or COMPUTER
+     * @param direction - an index into GameState.DELTAS
+     * @param whatIsPickedUp - the number on the destination cell
+     * @return - the packed move
+     */
+    public static int encode(int whichPlayer, int direction, int whatIsPickedUp)
+    {
+        return whatIsPickedUp << 3 | direction << 1 | whichPlayer;
+    }
+
+    public static int getWhichPlayerIsMoving(int move)
+    {
+        return move & 1;
+    }
+
+    public static int getDirection(int move)
+    {
+        return (move >>> 1) & 3;
+    }
+
+    public static int getWhatIsPickedUp(int move)
+    {
+        return move >>> 3;
+    }
+
+    /**
+     * @param move - a packed move
+     * @param state - the position the move is about to be made from
+     * @return - the same move as a MoveDescription
+     */
+    public static MoveDescription toDescription(int move, Board state)
+    {
+        int player = getWhichPlayerIsMoving(move);
+        int[] start = state.getPlayerPosition(player).clone();
+        int[] delta = GameState.DELTAS[getDirection(move)];
+        return new MoveDescription(player, start, new int[]{start[0]+delta[0], start[1]+delta[1]},
+                getWhatIsPickedUp(move));
+    }
+
+    /**
+     * @param move - a MoveDescription of a single step
+     * @return - the same move, packed
+     */
+    public static int fromDescription(MoveDescription move)
+    {
+        int deltaR = move.getDestinationPos()[0] - move.getStartPos()[0];
+        int deltaC = move.getDestinationPos()[1] - move.getStartPos()[1];
+        for (int direction = 0; direction < GameState.DELTAS.length; direction++)
+            if (GameState.DELTAS[direction][0] == deltaR && GameState.DELTAS[direction][1] == deltaC)
+                return encode(move.getWhichPlayerIsMoving(), direction, move.getWhatIsPickedUp());
+        throw new IllegalArgumentException("Hey, that move isn't a single step up, down, left or right.\n" + move);
+    }
+}
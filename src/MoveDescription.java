@@ -2,7 +2,7 @@ import java.util.Arrays;
 
 public class MoveDescription
 {
-    private int whichPlayerIsMoving; // GamePanel.HUMAN or GamePanel.COMPUTER
+    private int whichPlayerIsMoving; // GameState.HUMAN or GameState.COMPUTER
     private int[] startPos, destinationPos;   // (row, col)
     private int whatIsPickedUp; // the score that is on the destination square
 
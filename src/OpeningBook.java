@@ -0,0 +1,213 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The computer's moves for the first few turns of particular boards, worked out ahead of time by a deep search (see
+ * OpeningBookBuilder) and kept in a file. The start of the game is where the search has the most to do - every cell
+ * is full and both players can go anywhere - so for a board that is in the book (a seeded or tournament board, say),
+ * MiniMaxEngine (see setOpeningBook()) looks the move up instead.
+ * *
+ * Positions are found by their Zobrist key, which covers the numbers each cell started with, where the players are
+ * and the turn - everything that decides how the game goes on from there.
+ * *
+ * The file is too big to want it all in memory, so only an index is read in when it is opened. The file is:
+ *     a header: MAGIC, VERSION, the number of entries and the number of entries per block (ints)
+ *     the index: the first key of each block (longs)
+ *     the entries, sorted by key, each a key (long), the direction of the computer's move (a byte) and how many steps
+ *     ahead the search that chose it looked (a byte)
+ * A look-up finds the block from the index, reads just that block from the disk and finds the entry within it. The
+ * answers to the most recent look-ups - including "not in the book", which is the usual answer once the opening is
+ * over - are kept in a least-recently-used cache in front of all that, so asking again doesn't touch the disk.
+ * *
+ * Look-ups may come from several threads at once.
+ */
+public class OpeningBook
+{
+    static final int MAGIC = 0x47424F42; // "GBOB"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 4 * Integer.BYTES;
+    static final int BYTES_PER_ENTRY = Long.BYTES + 2;
+    static final int ENTRIES_PER_BLOCK = 64;
+    // how many look-ups the cache remembers, unless we are told otherwise.
+    public static final int DEFAULT_CACHE_SIZE = 1024;
+    // returned by lookUp() for a position that isn't in the book.
+    public static final int NOT_FOUND = -1;
+
+    private final FileChannel channel;
+    private final int numEntries, entriesPerBlock;
+    private final long[] firstKeys; // the index: the first key in each block
+    private final long entriesStart; // where in the file the first entry is
+    private final Map<Long, Integer> cache; // recent look-ups, least recently used first
+    private long lookUps, cacheHits, diskReads;
+
+    /**
+     * opens an opening book file written by OpeningBookBuilder, with a cache of DEFAULT_CACHE_SIZE look-ups.
+     * @param file - where it is
+     * @throws IOException if it can't be read, or isn't an opening book.
+     */
+    public OpeningBook(Path file) throws IOException
+    {
+        this(file, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * @param file - an opening book file written by OpeningBookBuilder
+     * @param cacheSize - how many look-ups to remember
+     * @throws IOException if it can't be read, or isn't an opening book.
+     */
+    public OpeningBook(Path file, int cacheSize) throws IOException
+    {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        try
+        {
+            ByteBuffer header = read(0, HEADER_BYTES);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION)
+                throw new IOException("Hey, " + file + " isn't an opening book (or is from a different version).");
+            numEntries = header.getInt();
+            entriesPerBlock = header.getInt();
+            if (numEntries < 0 || entriesPerBlock < 1)
+                throw new IOException("Hey, the header of " + file + " doesn't make sense.");
+            int numBlocks = (numEntries + entriesPerBlock - 1) / entriesPerBlock;
+            entriesStart = HEADER_BYTES + (long) numBlocks * Long.BYTES;
+            if (channel.size() != entriesStart + (long) numEntries * BYTES_PER_ENTRY)
+                throw new IOException("Hey, " + file + " is the wrong size - was it cut short?");
+            firstKeys = new long[numBlocks];
+            read(HEADER_BYTES, numBlocks * Long.BYTES).asLongBuffer().get(firstKeys);
+        }
+        catch (IOException e)
+        {
+            channel.close();
+            throw e;
+        }
+        cache = new LinkedHashMap<>(16, 0.75f, true)
+        {
+            protected boolean removeEldestEntry(Map.Entry<Long, Integer> eldest)
+            {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * @param key - the Zobrist key of a position with the computer to move
+     * @return - the book's entry for that position (see getDirection() and getDepth()), or NOT_FOUND.
+     * @throws RuntimeException if the file can't be read any more.
+     */
+    public synchronized int lookUp(long key)
+    {
+        lookUps++;
+        Integer cached = cache.get(key);
+        if (cached != null)
+        {
+            cacheHits++;
+            return cached;
+        }
+        int entry;
+        try
+        {
+            entry = lookUpOnDisk(key);
+        }
+        catch (IOException e)
+        {
+            throw new RuntimeException("Hey, I couldn't read the opening book.", e);
+        }
+        cache.put(key, entry);
+        return entry;
+    }
+
+    /**
+     * @param entry - something lookUp() returned (not NOT_FOUND)
+     * @return - the index into GameState.DELTAS of the way the computer should move.
+     */
+    public static int getDirection(int entry)
+    {
+        return entry & 0xFF;
+    }
+
+    /**
+     * @param entry - something lookUp() returned (not NOT_FOUND)
+     * @return - how many steps ahead (beyond the computer's own move) the search that chose the move looked.
+     */
+    public static int getDepth(int entry)
+    {
+        return entry >>> 8;
+    }
+
+    /**
+     * @return - how many positions the book has moves for.
+     */
+    public int getNumEntries()
+    {
+        return numEntries;
+    }
+
+    /**
+     * @return - the fraction of look-ups the cache answered without going to the disk (0 if there haven't been any).
+     */
+    public synchronized double getCacheHitRate()
+    {
+        return lookUps == 0 ? 0 : (double) cacheHits / lookUps;
+    }
+
+    /**
+     * @return - how many blocks have been read from the disk so far.
+     */
+    public synchronized long getDiskReads()
+    {
+        return diskReads;
+    }
+
+    public void close() throws IOException
+    {
+        channel.close();
+    }
+
+    private int lookUpOnDisk(long key) throws IOException
+    {
+        // the last block whose first key is no bigger than this one.
+        int block = Arrays.binarySearch(firstKeys, key);
+        if (block < 0)
+            block = -block - 2;
+        if (block < 0)
+            return NOT_FOUND;
+        int numInBlock = Math.min(entriesPerBlock, numEntries - block * entriesPerBlock);
+        ByteBuffer entries = read(entriesStart + (long) block * entriesPerBlock * BYTES_PER_ENTRY,
+                numInBlock * BYTES_PER_ENTRY);
+        diskReads++;
+        int low = 0, high = numInBlock - 1;
+        while (low <= high)
+        {
+            int middle = (low + high) >>> 1;
+            long middleKey = entries.getLong(middle * BYTES_PER_ENTRY);
+            if (middleKey < key)
+                low = middle + 1;
+            else if (middleKey > key)
+                high = middle - 1;
+            else
+            {
+                int direction = entries.get(middle * BYTES_PER_ENTRY + Long.BYTES);
+                int depth = entries.get(middle * BYTES_PER_ENTRY + Long.BYTES + 1) & 0xFF;
+                return depth << 8 | direction;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * @return - the given number of bytes from the given place in the file, ready to read from the start.
+     */
+    private ByteBuffer read(long position, int numBytes) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(numBytes);
+        while (buffer.hasRemaining())
+            if (channel.read(buffer, position + buffer.position()) < 0)
+                throw new IOException("Hey, the opening book ended too soon.");
+        return buffer.flip();
+    }
+}
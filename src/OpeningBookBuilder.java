@@ -0,0 +1,122 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A command-line tool that writes an OpeningBook for the boards GameState(seed) makes from a range of seeds.
+ * *
+ * For each board, it goes through every line of play for the first few plies: every move the human could make, and
+ * the move a deep, fixed-depth MiniMaxEngine search picks for the computer in reply (so the book keeps having an answer
+ * for as long as the human stays within those plies). The boards are shared out between one thread per processor,
+ * each with its own engine.
+ * *
+ * Usage: java OpeningBookBuilder file [plies] [stepsToLook] [firstSeed] [numSeeds]
+ *     e.g. "java OpeningBookBuilder openings.book 6 12 0 100", then "java APMiniMaxRunner seed=7 book=openings.book".
+ */
+public class OpeningBookBuilder
+{
+    public static void main(String[] args) throws Exception
+    {
+        if (args.length < 1)
+            throw new IllegalArgumentException("Hey, usage: java OpeningBookBuilder file [plies] [stepsToLook] " +
+                    "[firstSeed] [numSeeds]");
+        Path file = Path.of(args[0]);
+        int plies = args.length > 1 ? Integer.parseInt(args[1]) : 6;
+        int steps = args.length > 2 ? Integer.parseInt(args[2]) : 12;
+        long firstSeed = args.length > 3 ? Long.parseLong(args[3]) : 0;
+        int numSeeds = args.length > 4 ? Integer.parseInt(args[4]) : 100;
+
+        long start = System.nanoTime();
+        Map<Long, Integer> book = new ConcurrentHashMap<>();
+        ExecutorService pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        Future<?>[] boards = new Future<?>[numSeeds];
+        for (int i = 0; i < numSeeds; i++)
+        {
+            long seed = firstSeed + i;
+            boards[i] = pool.submit(() ->
+            {
+                MiniMaxEngine engine = new MiniMaxEngine(steps);
+                engine.setTranspositionTable(new TranspositionTable(ParallelSearch.TABLE_MEGABYTES_PER_THREAD));
+                engine.setSeed(seed);
+                addOpenings(new GameState(seed), engine, plies, book);
+            });
+        }
+        for (Future<?> board : boards)
+            board.get();
+        pool.shutdown();
+        write(file, book);
+        System.out.printf("%d positions from %d boards in %.1f s%n", book.size(), numSeeds,
+                (System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * adds the computer's move in every position within the given number of plies of this one to the book.
+     * @param board - the position to start from; it is returned to its original condition when we are done.
+     * @param engine - the engine to search with
+     * @param pliesLeft - how many more moves (by either player) to go through
+     * @param book - the moves found so far: the Zobrist key of each position, and its entry (see OpeningBook.lookUp())
+     */
+    private static void addOpenings(Board board, MiniMaxEngine engine, int pliesLeft, Map<Long, Integer> book)
+    {
+        if (pliesLeft == 0 || board.isGameOver())
+            return;
+        if (board.getTurn() % 2 == GameState.HUMAN)
+        {
+            int[] moves = new int[4];
+            int numMoves = board.generateMoves(GameState.HUMAN, moves, 0);
+            for (int i = 0; i < numMoves; i++)
+            {
+                board.makeMove(moves[i]);
+                addOpenings(board, engine, pliesLeft - 1, book);
+                board.undoMove(moves[i]);
+            }
+        }
+        else
+        {
+            int move = Move.fromDescription(engine.bestMoveForComputer(board));
+            book.put(board.getZobristKey(), engine.getDepthReached() << 8 | Move.getDirection(move));
+            board.makeMove(move);
+            addOpenings(board, engine, pliesLeft - 1, book);
+            board.undoMove(move);
+        }
+    }
+
+    /**
+     * writes the book out in the format OpeningBook reads (see there).
+     * @param file - where to put it
+     * @param book - the Zobrist key of each position, and its entry
+     */
+    private static void write(Path file, Map<Long, Integer> book) throws IOException
+    {
+        long[] keys = new long[book.size()];
+        int numEntries = 0;
+        for (long key : book.keySet())
+            keys[numEntries++] = key;
+        Arrays.sort(keys);
+        int entriesPerBlock = OpeningBook.ENTRIES_PER_BLOCK;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file))))
+        {
+            out.writeInt(OpeningBook.MAGIC);
+            out.writeInt(OpeningBook.VERSION);
+            out.writeInt(numEntries);
+            out.writeInt(entriesPerBlock);
+            for (int i = 0; i < numEntries; i += entriesPerBlock)
+                out.writeLong(keys[i]);
+            for (long key : keys)
+            {
+                int entry = book.get(key);
+                out.writeLong(key);
+                out.writeByte(OpeningBook.getDirection(entry));
+                out.writeByte(OpeningBook.getDepth(entry));
+            }
+        }
+    }
+}
@@ -0,0 +1,237 @@
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Finds the computer's best move the same way MiniMaxEngine does, but shares the work between several threads.
+ * *
+ * It uses "young brothers wait" splitting: at each of the top few levels of the tree, the first (most promising) move
+ * is searched on its own, which usually narrows the alpha-beta window a lot. Only then are its younger brothers handed
+ * out to the ForkJoinPool to be searched at the same time, all with that narrower window. Below those top levels,
+ * each task just asks a MiniMaxEngine to search the rest sequentially.
+ * *
+ * Every task works on its own copy of the Board, and every pool thread has its own MiniMaxEngine (with its own
+ * TranspositionTable), so nothing is shared between threads except the final answers.
+ * *
+ * At the root, every move scoring at least as well as the first one gets an exact score (just as in
+ * MiniMaxEngine.bestMoveForComputer()), so the set of equally best moves - and, with the same seed, the move picked
+ * from them - is the same as a sequential search to the same depth.
+ */
+public class ParallelSearch
+{
+    // how many levels of the tree (counting the root) are split between threads.
+    public static final int DEFAULT_SPLIT_LEVELS = 3;
+    // nodes with fewer steps than this left to look aren't worth handing to another thread.
+    public static final int MIN_STEPS_TO_SPLIT = 4;
+    // transposition table size for each thread's engine.
+    public static final int TABLE_MEGABYTES_PER_THREAD = 4;
+
+    private final ForkJoinPool pool;
+    private final int splitLevels;
+    private final ThreadLocal<MiniMaxEngine> engines;
+    private final LongAdder nodesVisited = new LongAdder();
+    private Random random = new Random();
+
+    /**
+     * @param numThreads - how many threads to search with.
+     */
+    public ParallelSearch(int numThreads)
+    {
+        this(numThreads, DEFAULT_SPLIT_LEVELS);
+    }
+
+    /**
+     * @param numThreads - how many threads to search with.
+     * @param splitLevels - how many levels of the tree (counting the root) to split between threads.
+     */
+    public ParallelSearch(int numThreads, int splitLevels)
+    {
+        pool = new ForkJoinPool(numThreads);
+        this.splitLevels = splitLevels;
+        engines = ThreadLocal.withInitial(() ->
+        {
+            MiniMaxEngine engine = new MiniMaxEngine();
+            engine.setTranspositionTable(new TranspositionTable(TABLE_MEGABYTES_PER_THREAD));
+            return engine;
+        });
+    }
+
+    /**
+     * makes the choice between equally good moves repeatable. (See MiniMaxEngine.setSeed().)
+     * @param seed - the seed for the random number generator that breaks ties.
+     */
+    public void setSeed(long seed)
+    {
+        random = new Random(seed);
+    }
+
+    /**
+     * @return - the total number of nodes visited by all threads in the most recent search.
+     */
+    public long getNodesVisited()
+    {
+        return nodesVisited.sum();
+    }
+
+    /**
+     * @return - how many threads the search runs on.
+     */
+    public int getNumThreads()
+    {
+        return pool.getParallelism();
+    }
+
+    /**
+     * stops the pool's threads. The ParallelSearch can't be used after this.
+     */
+    public void shutdown()
+    {
+        pool.shutdown();
+    }
+
+    /**
+     * finds the best move for the computer, looking a fixed number of steps ahead.
+     * @param gameState - the position to think about. It isn't changed.
+     * @param numStepsLeftToLook - how far to look after the computer's move (as in MiniMaxEngine)
+     * @return - the move with the highest score ranking; if several tie, one of them at random.
+     */
+    public MoveDescription bestMoveForComputer(Board gameState, int numStepsLeftToLook)
+    {
+        nodesVisited.reset();
+        Board root = gameState.copy();
+        int[] options = new int[GameState.DELTAS.length];
+        int numOptions = root.generateMoves(GameState.COMPUTER, options, 0);
+        int[] rankings = pool.invoke(new RootTask(root, options, numOptions, numStepsLeftToLook));
+
+        ArrayList<Integer> bestMoves = new ArrayList<>();
+        int bestRanking = -MiniMaxEngine.INFINITY;
+        for (int i = 0; i < numOptions; i++)
+        {
+            if (rankings[i] > bestRanking)
+            {
+                bestRanking = rankings[i];
+                bestMoves.clear();
+            }
+            if (rankings[i] == bestRanking)
+                bestMoves.add(options[i]);
+        }
+        return Move.toDescription(bestMoves.get(random.nextInt(bestMoves.size())), root);
+    }
+
+    /**
+     * Scores all the computer's moves at the root: the first one on its own, then the rest at the same time with a
+     * window just below the first one's score.
+     */
+    @SuppressWarnings("serial") // (a task is never serialized.)
+    private class RootTask extends RecursiveTask<int[]>
+    {
+        private final Board root;
+        private final int[] options; // packed moves
+        private final int numOptions;
+        private final int numStepsLeftToLook;
+
+        RootTask(Board root, int[] options, int numOptions, int numStepsLeftToLook)
+        {
+            this.root = root;
+            this.options = options;
+            this.numOptions = numOptions;
+            this.numStepsLeftToLook = numStepsLeftToLook;
+        }
+
+        @Override
+        protected int[] compute()
+        {
+            int[] rankings = new int[numOptions];
+            rankings[0] = new NodeTask(root, options[0], numStepsLeftToLook,
+                    -MiniMaxEngine.INFINITY, MiniMaxEngine.INFINITY, splitLevels - 1).compute();
+            // a move that ties the first one still gets an exact score with this window.
+            int alpha = rankings[0] - 1;
+            ArrayList<NodeTask> youngerBrothers = new ArrayList<>();
+            for (int i = 1; i < numOptions; i++)
+                youngerBrothers.add(new NodeTask(root, options[i], numStepsLeftToLook, alpha,
+                        MiniMaxEngine.INFINITY, splitLevels - 1));
+            invokeAll(youngerBrothers);
+            for (int i = 1; i < numOptions; i++)
+                rankings[i] = youngerBrothers.get(i-1).join();
+            return rankings;
+        }
+    }
+
+    /**
+     * Scores one move (by either player): the same number that MiniMaxEngine's twin methods would give it for the same
+     * window. If there are split levels left, the replies are searched "young brothers wait" style; otherwise a
+     * MiniMaxEngine does the whole thing.
+     */
+    @SuppressWarnings("serial") // (nor is this one.)
+    private class NodeTask extends RecursiveTask<Integer>
+    {
+        private final Board parent;
+        private final int move; // packed (see Move)
+        private final int numStepsLeftToLook;
+        private final int alpha, beta;
+        private final int splitLevelsLeft;
+
+        /**
+         * @param parent - the position the move is made from. The task works on its own copy.
+         * @param move - the packed move to score
+         * @param numStepsLeftToLook - how far to look after the move
+         * @param alpha - the bottom of the window
+         * @param beta - the top of the window
+         * @param splitLevelsLeft - how many more levels below this one may be split between threads
+         */
+        NodeTask(Board parent, int move, int numStepsLeftToLook, int alpha, int beta,
+                 int splitLevelsLeft)
+        {
+            this.parent = parent;
+            this.move = move;
+            this.numStepsLeftToLook = numStepsLeftToLook;
+            this.alpha = alpha;
+            this.beta = beta;
+            this.splitLevelsLeft = splitLevelsLeft;
+        }
+
+        @Override
+        protected Integer compute()
+        {
+            Board state = parent.copy();
+            boolean computerMoved = Move.getWhichPlayerIsMoving(move) == GameState.COMPUTER;
+            if (splitLevelsLeft <= 0 || numStepsLeftToLook < MIN_STEPS_TO_SPLIT)
+            {
+                MiniMaxEngine engine = engines.get();
+                int ranking = computerMoved
+                        ? engine.scoreComputerMove(state, move, numStepsLeftToLook, alpha, beta)
+                        : engine.scoreHumanMove(state, move, numStepsLeftToLook, alpha, beta);
+                nodesVisited.add(engine.getNodesVisited());
+                return ranking;
+            }
+
+            state.makeMove(move);
+            nodesVisited.increment();
+            if (state.isGameOver())
+                return state.getScoreRanking();
+            // after the computer moves, the human picks the lowest ranking, and vice versa.
+            int[] replies = new int[GameState.DELTAS.length];
+            int numReplies = state.generateMoves(computerMoved ? GameState.HUMAN : GameState.COMPUTER, replies, 0);
+            int low = alpha, high = beta;
+            int best = new NodeTask(state, replies[0], numStepsLeftToLook - 1, low, high,
+                    splitLevelsLeft - 1).compute();
+            if (computerMoved)
+                high = Math.min(high, best);
+            else
+                low = Math.max(low, best);
+            if (low >= high || numReplies == 1)
+                return best;
+
+            ArrayList<NodeTask> youngerBrothers = new ArrayList<>();
+            for (int i = 1; i < numReplies; i++)
+                youngerBrothers.add(new NodeTask(state, replies[i], numStepsLeftToLook - 1, low, high,
+                        splitLevelsLeft - 1));
+            invokeAll(youngerBrothers);
+            for (NodeTask brother : youngerBrothers)
+                best = computerMoved ? Math.min(best, brother.join()) : Math.max(best, brother.join());
+            return best;
+        }
+    }
+}
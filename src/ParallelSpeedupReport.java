@@ -0,0 +1,50 @@
+/**
+ * A command-line tool that times ParallelSearch on a few seeded boards with 1, 2, 4... threads, and prints the speedup
+ * over one thread. It also checks that every search picks the same move as a sequential MiniMaxEngine search to the
+ * same depth.
+ * *
+ * Usage: java ParallelSpeedupReport [stepsToLook] [numBoards] [maxThreads]
+ */
+public class ParallelSpeedupReport
+{
+    public static void main(String[] args)
+    {
+        int steps = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int numBoards = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int maxThreads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        GameState[] boards = new GameState[numBoards];
+        MoveDescription[] sequentialMoves = new MoveDescription[numBoards];
+        for (int i = 0; i < numBoards; i++)
+        {
+            boards[i] = new GameState(i);
+            boards[i].makeMove(boards[i].getMovesByValueForPlayer(GameState.HUMAN).get(0));
+            MiniMaxEngine engine = new MiniMaxEngine(steps);
+            engine.setSeed(i);
+            sequentialMoves[i] = engine.bestMoveForComputer(boards[i]);
+        }
+
+        System.out.println("threads,millis,nodes,speedup,sameMoveAsSequential");
+        double oneThreadMillis = 0;
+        for (int threads = 1; threads <= maxThreads; threads *= 2)
+        {
+            ParallelSearch search = new ParallelSearch(threads);
+            search.bestMoveForComputer(boards[0], steps); // warm up the JIT and the pool
+            long nodes = 0;
+            boolean allSame = true;
+            long start = System.nanoTime();
+            for (int i = 0; i < numBoards; i++)
+            {
+                search.setSeed(i);
+                MoveDescription move = search.bestMoveForComputer(boards[i], steps);
+                nodes += search.getNodesVisited();
+                allSame &= move.toString().equals(sequentialMoves[i].toString());
+            }
+            double millis = (System.nanoTime() - start) / 1e6;
+            if (threads == 1)
+                oneThreadMillis = millis;
+            System.out.printf("%d,%.1f,%d,%.2f,%b%n", threads, millis, nodes, oneThreadMillis / millis, allSame);
+            search.shutdown();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Thinks about the computer's next move while the human is still choosing theirs ("pondering"). As soon as the
+ * computer has moved, start() takes a copy of the board and, on a background virtual thread, tries each of the human's
+ * possible replies (biggest gobble first, since that is the likeliest) and searches the computer's best answer to it.
+ * When the human does move, takeResult() stops the pondering and hands back the answer for the position they actually
+ * reached - if we got to it in time - so the computer can move at once. Otherwise it returns null and the computer
+ * thinks as usual.
+ * *
+ * Each pondering session gets a new engine (stop() can't be undone). They can all be made just like the engine the
+ * computer moves with - with its opening book, endgame and tablebase, or Monte Carlo instead of minimax - so that an
+ * answer we found is the one the computer would have found by itself, only sooner. MiniMaxEngines can share one
+ * TranspositionTable, which is never used by two sessions at once: a session is always finished before the next
+ * starts. It can be the table the computer's own searches use, too - then even a reply we didn't finish with isn't
+ * wasted: the computer's search finds whatever we did work out about it in the table, and carries on from there.
+ */
+public class Ponderer
+{
+    private final Supplier<Strategy> newEngine; // makes the engine for each session
+    // the computer's best answer to each human reply searched so far, by the Zobrist key of the position it leads to.
+    private final Map<Long, MoveDescription> answers = new ConcurrentHashMap<>();
+    private Thread thread; // the session in progress, or null
+    private Strategy engine; // the engine that session is using
+
+    /**
+     * @param millisPerReply - how long to think about each of the human's possible replies
+     */
+    public Ponderer(long millisPerReply)
+    {
+        this(millisPerReply, new TranspositionTable(MiniMaxEngine.DEFAULT_TABLE_MEGABYTES));
+    }
+
+    /**
+     * @param millisPerReply - how long to think about each of the human's possible replies
+     * @param table - the transposition table to ponder with, e.g. the one the computer's own searches use. Nobody
+     *              else may use it between start() and takeResult() (or cancel()).
+     */
+    public Ponderer(long millisPerReply, TranspositionTable table)
+    {
+        this(() ->
+        {
+            MiniMaxEngine engine = new MiniMaxEngine();
+            engine.setTranspositionTable(table);
+            engine.setTimeBudget(millisPerReply);
+            engine.setEvaluator(new TerritoryEvaluator());
+            return engine;
+        });
+    }
+
+    /**
+     * @param newEngine - makes a new engine, with the time budget for each of the human's possible replies, whenever
+     *                  we start pondering. (If they share a TranspositionTable, nobody else may use it between start()
+     *                  and takeResult() or cancel().)
+     */
+    public Ponderer(Supplier<Strategy> newEngine)
+    {
+        this.newEngine = newEngine;
+    }
+
+    /**
+     * stops any pondering in progress and starts thinking about the human's replies to the given position. Call this
+     * (from the thread that moves on the board) after the computer has moved, before the human can move.
+     * @param board - the position, with the human to move. It is copied, so the caller may go on changing it.
+     */
+    public synchronized void start(Board board)
+    {
+        cancel();
+        Board copy = board.copy();
+        Strategy sessionEngine = newEngine.get();
+        engine = sessionEngine;
+        thread = Thread.ofVirtual().name("ponder").start(() -> ponder(copy, sessionEngine));
+    }
+
+    /**
+     * stops pondering and waits for the background thread to finish, so nothing is still thinking afterward.
+     */
+    public synchronized void cancel()
+    {
+        if (thread == null)
+            return;
+        engine.stop();
+        try
+        {
+            thread.join();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        thread = null;
+        engine = null;
+        answers.clear();
+    }
+
+    /**
+     * stops pondering and looks for the answer to the position the human has just moved to.
+     * @param board - the position after the human's move, with the computer to move
+     * @return - the computer's move in that position, or null if we hadn't finished thinking about it.
+     */
+    public synchronized MoveDescription takeResult(Board board)
+    {
+        MoveDescription answer = answers.get(board.getZobristKey());
+        cancel();
+        return answer;
+    }
+
+    /**
+     * runs on the background thread: searches the computer's answer to each of the human's replies in turn, until
+     * they have all been done or the engine is stopped.
+     */
+    private void ponder(Board board, Strategy sessionEngine)
+    {
+        int[] replies = new int[4];
+        int numReplies = board.generateMoves(GameState.HUMAN, replies, 0);
+        for (int i = 0; i < numReplies; i++)
+        {
+            board.makeMove(replies[i]);
+            if (!board.isGameOver())
+            {
+                MoveDescription answer = sessionEngine.bestMoveForComputer(board);
+                // a search cut short by stop() is shallower than the computer would manage by itself, so drop it.
+                if (sessionEngine.getDepthReached() > 0 && !sessionEngine.isStopped())
+                    answers.put(board.getZobristKey(), answer);
+            }
+            board.undoMove(replies[i]);
+            if (sessionEngine.isStopped())
+                return;
+        }
+    }
+}
@@ -0,0 +1,321 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Works out the best move in each of a file full of positions, with no window and no game - e.g. to analyse a log of
+ * games, or to check an engine against positions whose answers we know. The file can be any size: positions are read
+ * a line at a time, analysed on a thread per processor, and their results written out as soon as they (and every
+ * position before them) are done, so the memory it takes doesn't grow with the file.
+ * *
+ * Each position is one line of numbers, separated by spaces:
+ *     numRows numCols whichPlayerToMove humanRow humanCol computerRow computerCol humanScore computerScore
+ * followed by the number each cell shows, row by row (zero for none, including the cells the players stand on).
+ * whichPlayerToMove is 0 for the human and 1 for the computer. Blank lines and lines starting with # are skipped.
+ * *
+ * The results are comma-separated, one line per position, in the same order as the positions:
+ *     line,direction,row,col,ranking,depth,nodes,micros,error
+ * line is the position's line number in the input; direction (an index into GameState.DELTAS), row and col are the
+ * best move and where it goes; ranking is the final score (computer minus human) the search expects, if it is a
+ * minimax search; depth is how far it looked; nodes is how many positions it visited (or playouts it made); micros is
+ * how long it took. If a position can't be analysed (it doesn't parse, say, or the game is already over) only line and
+ * error are filled in.
+ * *
+ * A reader thread reads the lines and hands them to the workers through a short queue, and the results are written
+ * in order on the calling thread. No more than a few positions per worker may be read and not yet written (the
+ * "window"), so if the workers or the output fall behind, the reader waits for them rather than filling memory with
+ * lines. Each worker keeps one engine for the whole run, but clears its TranspositionTable and seeds its random
+ * numbers from the line number before each position, so with a node or playout budget the results don't depend on
+ * how many threads there are or which worker had which position.
+ * *
+ * Usage: java PositionAnalyzer [in=positions.txt] [out=analysis.csv] [engine=nodes:100000,eval] [threads=8]
+ *     in= and out= default to (and "-" means) standard input and output; engine= is an engine set-up, as in
+ *     Tournament; threads= is how many positions to analyse at once (one per processor unless we say otherwise).
+ */
+public class PositionAnalyzer
+{
+    public static final String HEADER = "line,direction,row,col,ranking,depth,nodes,micros,error";
+    // how many positions each worker may have been read ahead of the output.
+    public static final int WINDOW_PER_THREAD = 4;
+
+    private static final Position END = new Position(-1, -1, null); // tells the workers there are no more positions
+
+    private final Tournament.Player engineSetup;
+    private final int numThreads;
+
+    /**
+     * @param engineSpec - how to set up the engines, e.g. "nodes:100000,eval" (see Tournament)
+     * @param numThreads - how many positions to analyse at once
+     */
+    public PositionAnalyzer(String engineSpec, int numThreads)
+    {
+        if (numThreads < 1)
+            throw new IllegalArgumentException("Hey, a PositionAnalyzer needs at least one thread.");
+        engineSetup = new Tournament.Player(engineSpec);
+        this.numThreads = numThreads;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException
+    {
+        String inName = "-", outName = "-";
+        String engineSpec = "nodes:100000,eval";
+        int numThreads = Runtime.getRuntime().availableProcessors();
+        for (String arg : args)
+        {
+            String value = arg.substring(arg.indexOf('=') + 1);
+            if (arg.startsWith("in="))
+                inName = value;
+            else if (arg.startsWith("out="))
+                outName = value;
+            else if (arg.startsWith("engine="))
+                engineSpec = value;
+            else if (arg.startsWith("threads="))
+                numThreads = Integer.parseInt(value);
+            else
+                throw new IllegalArgumentException("Hey, I don't know what \"" + arg + "\" means.");
+        }
+        PositionAnalyzer analyzer = new PositionAnalyzer(engineSpec, numThreads);
+        InputStream inStream = inName.equals("-") ? System.in : new FileInputStream(inName);
+        OutputStream outStream = outName.equals("-") ? System.out : new FileOutputStream(outName);
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(inStream, StandardCharsets.US_ASCII));
+             PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(outStream,
+                     StandardCharsets.US_ASCII))))
+        {
+            long start = System.nanoTime();
+            long numPositions = analyzer.analyze(in, out);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.err.printf("Analysed %d positions in %.1f s (%.1f a second) with engine %s on %d threads%n",
+                    numPositions, seconds, numPositions / seconds, engineSpec, numThreads);
+        }
+    }
+
+    /**
+     * analyses every position in the input and writes a line for each (after the HEADER) to the output, in order.
+     * @param in - the positions, one to a line (see the class comment)
+     * @param out - where the results go; it is flushed, but not closed, at the end
+     * @return - how many positions there were.
+     * @throws IOException if the input can't be read or the output can't be written.
+     * @throws InterruptedException if we are interrupted while waiting for a result.
+     */
+    public long analyze(BufferedReader in, PrintWriter out) throws IOException, InterruptedException
+    {
+        int window = WINDOW_PER_THREAD * numThreads;
+        Semaphore readAhead = new Semaphore(window); // one permit for each position read but not yet written
+        BlockingQueue<Position> positions = new ArrayBlockingQueue<>(numThreads);
+        Results results = new Results(window);
+
+        Thread reader = Thread.ofPlatform().daemon().name("position reader").start(() ->
+                readPositions(in, readAhead, positions, results));
+        for (int i = 0; i < numThreads; i++)
+        {
+            Strategy engine = engineSetup.newEngine(0);
+            Thread.ofPlatform().daemon().name("position analyzer " + i).start(() ->
+                    analyzePositions(engine, positions, results));
+        }
+
+        out.println(HEADER);
+        long numWritten = 0;
+        for (String result = results.take(numWritten); result != null; result = results.take(numWritten))
+        {
+            out.println(result);
+            numWritten++;
+            readAhead.release();
+        }
+        out.flush();
+        reader.join();
+        if (results.failure != null)
+            throw results.failure;
+        if (out.checkError())
+            throw new IOException("Hey, the results couldn't all be written.");
+        return numWritten;
+    }
+
+    /**
+     * the reader thread: queues up each line that has a position on it, waiting whenever the window is full.
+     */
+    private static void readPositions(BufferedReader in, Semaphore readAhead, BlockingQueue<Position> positions,
+                                      Results results)
+    {
+        long numPositions = 0;
+        try
+        {
+            int lineNumber = 0;
+            for (String line = in.readLine(); line != null; line = in.readLine())
+            {
+                lineNumber++;
+                if (line.isBlank() || line.trim().startsWith("#"))
+                    continue;
+                readAhead.acquire();
+                positions.put(new Position(numPositions++, lineNumber, line));
+            }
+        }
+        catch (IOException e)
+        {
+            results.failure = e;
+        }
+        catch (InterruptedException e)
+        {
+            results.failure = new IOException("Hey, reading was interrupted.", e);
+        }
+        finally
+        {
+            results.finish(numPositions);
+            try
+            {
+                positions.put(END);
+            }
+            catch (InterruptedException e)
+            {
+                // the program is ending, and the workers with it.
+            }
+        }
+    }
+
+    /**
+     * a worker thread: analyses positions until it is told there are no more.
+     */
+    private static void analyzePositions(Strategy engine, BlockingQueue<Position> positions, Results results)
+    {
+        try
+        {
+            for (Position position = positions.take(); position != END; position = positions.take())
+                results.put(position.index, analyze(engine, position));
+            positions.put(END); // (for the next worker.)
+        }
+        catch (InterruptedException e)
+        {
+            // the program is ending.
+        }
+    }
+
+    /**
+     * @param engine - the worker's engine
+     * @param position - the position to analyse
+     * @return - its line of results.
+     */
+    private static String analyze(Strategy engine, Position position)
+    {
+        long start = System.nanoTime();
+        try
+        {
+            Board board = parsePosition(position.line);
+            int whichPlayer = board.getTurn() % 2;
+            if (board.isGameOver())
+                throw new IllegalArgumentException("Hey, that game is already over.");
+            if (board.generateMoves(whichPlayer, new int[GameState.DELTAS.length], 0) == 0)
+                throw new IllegalArgumentException("Hey, the player to move has nowhere to go.");
+
+            String ranking = "", nodes = "";
+            if (engine instanceof MiniMaxEngine minimax)
+            {
+                minimax.getTranspositionTable().clear();
+                minimax.setSeed(position.lineNumber);
+            }
+            else if (engine instanceof MonteCarloEngine monteCarlo)
+                monteCarlo.setSeed(position.lineNumber);
+            MoveDescription move = (whichPlayer == GameState.COMPUTER) ? engine.bestMoveForComputer(board)
+                    : engine.bestMoveForHuman(board);
+            long micros = (System.nanoTime() - start) / 1000;
+            if (engine instanceof MiniMaxEngine minimax)
+            {
+                ranking = Integer.toString(minimax.getExpectedRanking());
+                nodes = Long.toString(minimax.getNodesVisited());
+            }
+            else if (engine instanceof MonteCarloEngine monteCarlo)
+                nodes = Long.toString(monteCarlo.getPlayouts());
+            int[] destination = move.getDestinationPos();
+            return position.lineNumber + "," + Move.getDirection(Move.fromDescription(move)) + "," + destination[0] +
+                    "," + destination[1] + "," + ranking + "," + engine.getDepthReached() + "," + nodes + "," +
+                    micros + ",";
+        }
+        catch (RuntimeException e)
+        {
+            String message = String.valueOf(e.getMessage()).replace("\"", "\"\"");
+            return position.lineNumber + ",,,,,,,,\"" + message + "\"";
+        }
+    }
+
+    /**
+     * @param line - a position, in the format described in the class comment
+     * @return - the board it describes.
+     * @throws IllegalArgumentException if it doesn't describe one.
+     */
+    public static Board parsePosition(String line)
+    {
+        String[] words = line.trim().split("\\s+");
+        if (words.length < 9)
+            throw new IllegalArgumentException("Hey, a position needs the size, whose turn it is, where the players " +
+                    "are and their scores before the numbers.");
+        int[] numbers = new int[words.length];
+        for (int i = 0; i < words.length; i++)
+            numbers[i] = Integer.parseInt(words[i]);
+        int[] values = new int[numbers.length - 9];
+        System.arraycopy(numbers, 9, values, 0, values.length);
+        int[][] playerPositions = {{numbers[3], numbers[4]}, {numbers[5], numbers[6]}};
+        int[] scores = {numbers[7], numbers[8]};
+        return new GameState(numbers[0], numbers[1], values, playerPositions, scores, numbers[2]);
+    }
+
+    /**
+     * one position to analyse.
+     * @param index - how many positions came before it
+     * @param lineNumber - where it is in the input (counting from 1)
+     * @param line - the position, as it was read
+     */
+    private record Position(long index, int lineNumber, String line)
+    {
+    }
+
+    /**
+     * the results that have been worked out but not yet written, in a ring with a slot for each position in the
+     * window. (The window means that no position is ever so far ahead of the output that its slot is still taken.)
+     */
+    private static class Results
+    {
+        private final String[] slots;
+        private long numPositions = -1; // how many positions the reader found (-1 until it has finished)
+        volatile IOException failure;   // why the reader stopped early, if it did
+
+        Results(int window)
+        {
+            slots = new String[window];
+        }
+
+        synchronized void put(long index, String result)
+        {
+            slots[(int) (index % slots.length)] = result;
+            notifyAll();
+        }
+
+        /**
+         * @return - the result for the position with the given index, once it has been worked out, or null if there
+         * is no such position.
+         */
+        synchronized String take(long index) throws InterruptedException
+        {
+            int slot = (int) (index % slots.length);
+            while (slots[slot] == null && (numPositions < 0 || index < numPositions))
+                wait();
+            String result = slots[slot];
+            slots[slot] = null;
+            return result;
+        }
+
+        synchronized void finish(long numPositions)
+        {
+            this.numPositions = numPositions;
+            notifyAll();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A Java Flight Recorder event for each move the computer thinks about, so a recording shows exactly how long every
+ * search took and why. The event's duration is the search time. It is only filled in and written when a recording with
+ * this event enabled is running; otherwise it costs next to nothing.
+ * *
+ * e.g. java -XX:StartFlightRecording:filename=games.jfr APMiniMaxRunner
+ *      jfr print --events apminimax.Search games.jfr
+ */
+@Name("apminimax.Search")
+@Label("Computer Move Search")
+@Category("APMiniMax")
+@Description("One call to MiniMaxEngine.bestMoveForComputer()")
+public class SearchEvent extends Event
+{
+    @Label("Nodes Visited")
+    public long nodes;
+
+    @Label("Depth Reached")
+    @Description("Steps looked ahead after the computer's move, by the deepest search that finished")
+    public int depth;
+
+    @Label("Branching Factor")
+    @Description("Average number of moves at each node whose moves were looked at")
+    public double branchingFactor;
+
+    @Label("Cutoffs")
+    @Description("Times alpha-beta stopped looking at a node's remaining moves")
+    public long cutoffs;
+
+    @Label("Table Hit Rate")
+    public double tableHitRate;
+
+    @Label("Nodes Per Second")
+    public double nodesPerSecond;
+
+    @Label("Table Size")
+    @DataAmount
+    public long tableBytes;
+}
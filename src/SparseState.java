@@ -0,0 +1,479 @@
+import java.util.Random;
+
+/**
+ * A Board for very big boards, which only stores the cells that still have a number: an open-addressing hash table
+ * from cell number (row * numCols + col) to the number the cell had at turn zero. Gobbling a cell takes it out of the
+ * table, so memory goes with how many numbers are left rather than with the area of the board - and a copy() only
+ * needs room for those. Like GameState, the numbers drop by one each turn by way of the turn counter, and we keep a
+ * count of how many cells had each starting value, so working out the decay, whether the game is over and each
+ * player's moves never has to look at the board as a whole.
+ * *
+ * reset() can also leave most of the board empty (see the density in the constructor). With a density of 1 it fills
+ * the board with the same numbers, for the same random numbers, as GameState - and either way this plays exactly the
+ * same game as the other Boards, and gives positions the same Zobrist keys.
+ */
+public class SparseState implements Board
+{
+    private final int numRows, numCols, numCells;
+    private final int minValue, maxValue; // the range of the numbers that reset() puts on the board
+    private final double density; // the fraction of the cells that reset() gives a number to
+
+    // the hash table of un-gobbled cells: tableCells holds (cell number + 1), or 0 for an empty slot, and tableValues
+    // the cell's number at turn zero. Its length is a power of two, at least twice the number of cells in it.
+    private int[] tableCells, tableValues;
+    private int tableMask, tableShift;
+    private int numEntries; // how many cells are in the table
+    private int[] numCellsWithStartValue; // how many un-gobbled cells had each value at turn zero.
+    private int numLiveCells; // how many cells still show a non-zero number.
+    private long liveStartTotal; // the total of those cells' numbers at turn zero.
+    private int turn;
+    private final int[] playerCells = new int[2]; // (HUMAN, COMPUTER) cell numbers
+    private final int[][] playerPositions = new int[2][2]; // the same as (row, col), for getPlayerPosition()
+    private int[] scores;
+    private long zobristKey;
+
+    /**
+     * makes a new, randomly filled board.
+     * @param numRows - how many rows of boxes
+     * @param numCols - how many columns of boxes
+     * @param minValue - the smallest number reset() puts on the board (at least 1)
+     * @param maxValue - the biggest number reset() puts on the board
+     * @param density - the fraction of the cells (other than the players' start cells) that get a number, from 0 to 1
+     * @param random - where the numbers come from
+     */
+    public SparseState(int numRows, int numCols, int minValue, int maxValue, double density, Random random)
+    {
+        GameState.checkSize(numRows, numCols, minValue, maxValue);
+        if (!(density >= 0 && density <= 1))
+            throw new IllegalArgumentException("Hey, a density of " + density + " is no good - it goes from 0 to 1.");
+        this.numRows = numRows;
+        this.numCols = numCols;
+        this.minValue = minValue;
+        this.maxValue = maxValue;
+        this.density = density;
+        numCells = numRows * numCols;
+        reset(random);
+    }
+
+    /**
+     * makes a sparse copy of any other Board, in the same position.
+     * @param other - the board to copy
+     */
+    public SparseState(Board other)
+    {
+        numRows = other.getNumRows();
+        numCols = other.getNumCols();
+        minValue = other.getMinValue();
+        maxValue = other.getMaxValue();
+        density = 1;
+        numCells = numRows * numCols;
+        int count = 0;
+        for (int cell = 0; cell < numCells; cell++)
+            if (other.getStartValue(cell / numCols, cell % numCols) != 0)
+                count++;
+        makeTable(count);
+        for (int cell = 0; cell < numCells; cell++)
+        {
+            int value = other.getStartValue(cell / numCols, cell % numCols);
+            if (value != 0)
+                insert(cell, value);
+        }
+        turn = other.getTurn();
+        scores = other.getScores().clone();
+        for (int player = GameState.HUMAN; player <= GameState.COMPUTER; player++)
+        {
+            int[] pos = other.getPlayerPosition(player);
+            placePlayer(player, pos[0] * numCols + pos[1]);
+        }
+        rebuild();
+    }
+
+    /**
+     * makes an independent copy of another SparseState, with a table just big enough for the cells it has left.
+     */
+    private SparseState(SparseState other)
+    {
+        numRows = other.numRows;
+        numCols = other.numCols;
+        minValue = other.minValue;
+        maxValue = other.maxValue;
+        density = other.density;
+        numCells = other.numCells;
+        makeTable(other.numEntries);
+        for (int slot = 0; slot < other.tableCells.length; slot++)
+            if (other.tableCells[slot] != 0)
+                insert(other.tableCells[slot] - 1, other.tableValues[slot]);
+        numCellsWithStartValue = other.numCellsWithStartValue.clone();
+        numLiveCells = other.numLiveCells;
+        liveStartTotal = other.liveStartTotal;
+        turn = other.turn;
+        scores = other.scores.clone();
+        for (int player = GameState.HUMAN; player <= GameState.COMPUTER; player++)
+            placePlayer(player, other.playerCells[player]);
+        zobristKey = other.zobristKey;
+    }
+
+    public Board copy()
+    {
+        return new SparseState(this);
+    }
+
+    public void reset()
+    {
+        reset(new Random());
+    }
+
+    public void reset(Random random)
+    {
+        // with a density of 1 we draw the same numbers, in the same order, as GameState.reset().
+        int[] values = new int[numCells];
+        int count = 0;
+        for (int cell = 1; cell < numCells-1; cell++)
+            if (density == 1 || random.nextDouble() < density)
+            {
+                values[cell] = random.nextInt(maxValue-minValue+1)+minValue;
+                count++;
+            }
+        makeTable(count);
+        for (int cell = 1; cell < numCells-1; cell++)
+            if (values[cell] != 0)
+                insert(cell, values[cell]);
+        turn = 0;
+        scores = new int[2];
+        placePlayer(GameState.HUMAN, 0);
+        placePlayer(GameState.COMPUTER, numCells-1);
+        rebuild();
+    }
+
+    /**
+     * works out the counts and the Zobrist key from the table, the turn and the player positions.
+     */
+    private void rebuild()
+    {
+        numCellsWithStartValue = new int[maxValue+1];
+        numLiveCells = 0;
+        liveStartTotal = 0;
+        zobristKey = Zobrist.turnKey(turn);
+        for (int player = GameState.HUMAN; player <= GameState.COMPUTER; player++)
+            zobristKey ^= Zobrist.positionKey(player, playerCells[player]);
+        for (int slot = 0; slot < tableCells.length; slot++)
+            if (tableCells[slot] != 0)
+            {
+                int value = tableValues[slot];
+                numCellsWithStartValue[value]++;
+                if (value > turn)
+                {
+                    numLiveCells++;
+                    liveStartTotal += value;
+                }
+                zobristKey ^= Zobrist.cellKey(tableCells[slot] - 1, value);
+            }
+    }
+
+    private void placePlayer(int whichPlayer, int cell)
+    {
+        playerCells[whichPlayer] = cell;
+        playerPositions[whichPlayer][0] = cell / numCols;
+        playerPositions[whichPlayer][1] = cell % numCols;
+    }
+
+    public int getNumRows()
+    {
+        return numRows;
+    }
+
+    public int getNumCols()
+    {
+        return numCols;
+    }
+
+    public int getMinValue()
+    {
+        return minValue;
+    }
+
+    public int getMaxValue()
+    {
+        return maxValue;
+    }
+
+    public int getValue(int r, int c)
+    {
+        return Math.max(0, getStartValue(r, c) - turn);
+    }
+
+    public int getStartValue(int r, int c)
+    {
+        int slot = find(r * numCols + c);
+        return slot < 0 ? 0 : tableValues[slot];
+    }
+
+    public int[] getPlayerPosition(int whichPlayer)
+    {
+        return playerPositions[whichPlayer];
+    }
+
+    public int[] getScores()
+    {
+        return scores;
+    }
+
+    public int getScoreRanking()
+    {
+        return scores[GameState.COMPUTER] - scores[GameState.HUMAN];
+    }
+
+    public int getTurn()
+    {
+        return turn;
+    }
+
+    public long getZobristKey()
+    {
+        return zobristKey;
+    }
+
+    public int checkForPossibleHumanMoves()
+    {
+        int[] flags = {GameState.UP_FLAG, GameState.LEFT_FLAG, GameState.DOWN_FLAG, GameState.RIGHT_FLAG};
+        int result = 0;
+        for (int direction = 0; direction < GameState.DELTAS.length; direction++)
+        {
+            int to = stepTo(playerCells[GameState.HUMAN], direction);
+            if (to >= 0 && to != playerCells[GameState.COMPUTER])
+                result += flags[direction];
+        }
+        return result;
+    }
+
+    public MoveDescription describeMove(int whichPlayer, int deltaR, int deltaC)
+    {
+        int[] start = playerPositions[whichPlayer].clone();
+        int[] destination = {start[0] + deltaR, start[1] + deltaC};
+        return new MoveDescription(whichPlayer, start, destination, getValue(destination[0], destination[1]));
+    }
+
+    public void makeMove(MoveDescription move)
+    {
+        makeMove(Move.fromDescription(move));
+    }
+
+    public void undoMove(MoveDescription move)
+    {
+        undoMove(Move.fromDescription(move));
+    }
+
+    public void makeMove(int move)
+    {
+        int player = Move.getWhichPlayerIsMoving(move);
+        int pickedUp = Move.getWhatIsPickedUp(move);
+        int from = playerCells[player];
+        int to = stepTo(from, Move.getDirection(move));
+        placePlayer(player, to);
+        scores[player] += pickedUp;
+        zobristKey ^= Zobrist.positionKey(player, from) ^ Zobrist.positionKey(player, to);
+        if (pickedUp > 0)
+        {
+            int slot = find(to);
+            int startValue = tableValues[slot];
+            remove(slot);
+            numCellsWithStartValue[startValue]--;
+            numLiveCells--;
+            liveStartTotal -= startValue;
+            zobristKey ^= Zobrist.cellKey(to, startValue);
+        }
+        zobristKey ^= Zobrist.turnKey(turn) ^ Zobrist.turnKey(turn+1);
+        turn++;
+        // any cell that started with the value "turn" has just run out.
+        if (turn < numCellsWithStartValue.length)
+        {
+            numLiveCells -= numCellsWithStartValue[turn];
+            liveStartTotal -= (long) numCellsWithStartValue[turn] * turn;
+        }
+    }
+
+    public void undoMove(int move)
+    {
+        if (turn < numCellsWithStartValue.length)
+        {
+            numLiveCells += numCellsWithStartValue[turn];
+            liveStartTotal += (long) numCellsWithStartValue[turn] * turn;
+        }
+        turn--;
+        zobristKey ^= Zobrist.turnKey(turn+1) ^ Zobrist.turnKey(turn);
+        int player = Move.getWhichPlayerIsMoving(move);
+        int pickedUp = Move.getWhatIsPickedUp(move);
+        int to = playerCells[player];
+        if (pickedUp > 0)
+        {
+            int startValue = pickedUp + turn;
+            insert(to, startValue);
+            numCellsWithStartValue[startValue]++;
+            numLiveCells++;
+            liveStartTotal += startValue;
+            zobristKey ^= Zobrist.cellKey(to, startValue);
+        }
+        scores[player] -= pickedUp;
+        // step back the opposite way: directions are listed up, left, down, right, so the opposite is two along.
+        int from = stepTo(to, (Move.getDirection(move) + 2) % 4);
+        placePlayer(player, from);
+        zobristKey ^= Zobrist.positionKey(player, to) ^ Zobrist.positionKey(player, from);
+    }
+
+    public int generateMoves(int whichPlayer, int[] moves, int offset)
+    {
+        int from = playerCells[whichPlayer];
+        int blocked = playerCells[1-whichPlayer];
+        int numMoves = 0;
+        for (int direction = 0; direction < GameState.DELTAS.length; direction++)
+        {
+            int to = stepTo(from, direction);
+            if (to < 0 || to == blocked)
+                continue;
+            int move = Move.encode(whichPlayer, direction, getValue(to / numCols, to % numCols));
+            // insertion sort - there are never more than four of these.
+            int i = offset + numMoves;
+            while (i > offset && Move.getWhatIsPickedUp(moves[i-1]) < Move.getWhatIsPickedUp(move))
+            {
+                moves[i] = moves[i-1];
+                i--;
+            }
+            moves[i] = move;
+            numMoves++;
+        }
+        return numMoves;
+    }
+
+    public boolean isGameOver()
+    {
+        return numLiveCells == 0;
+    }
+
+    public int getTurnsUntilAllRunOut()
+    {
+        for (int value = numCellsWithStartValue.length-1; value > turn; value--)
+            if (numCellsWithStartValue[value] > 0)
+                return value - turn;
+        return 0;
+    }
+
+    public int getNumLiveCells()
+    {
+        return numLiveCells;
+    }
+
+    public int getRemainingTotal()
+    {
+        return (int) (liveStartTotal - (long) numLiveCells * turn);
+    }
+
+    public int getMostPointsForOnePlayer(int whichPlayer)
+    {
+        int firstPly = (turn % 2 == whichPlayer) ? 0 : 1; // (how many turns until the player's first move.)
+        int pr = playerPositions[whichPlayer][0], pc = playerPositions[whichPlayer][1];
+        int total = 0;
+        for (int slot = 0; slot < tableCells.length; slot++)
+        {
+            if (tableCells[slot] == 0 || tableValues[slot] <= turn)
+                continue;
+            int cell = tableCells[slot] - 1;
+            int distance = Math.abs(cell / numCols - pr) + Math.abs(cell % numCols - pc);
+            int gain = tableValues[slot] - turn - firstPly - 2 * (distance - 1);
+            if (gain > 0)
+                total += gain;
+        }
+        return total;
+    }
+
+    /**
+     * @param cell - a cell number
+     * @param direction - an index into GameState.DELTAS
+     * @return - the cell one step that way, or -1 if that would be off the board.
+     */
+    private int stepTo(int cell, int direction)
+    {
+        int r = cell / numCols + GameState.DELTAS[direction][0];
+        int c = cell % numCols + GameState.DELTAS[direction][1];
+        return (r < 0 || c < 0 || r >= numRows || c >= numCols) ? -1 : r * numCols + c;
+    }
+
+    // the hash table ...................................................................
+
+    /**
+     * makes an empty table with room for the given number of cells.
+     */
+    private void makeTable(int capacity)
+    {
+        int size = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1) << 1;
+        tableCells = new int[size];
+        tableValues = new int[size];
+        tableMask = size - 1;
+        tableShift = 32 - Integer.numberOfTrailingZeros(size);
+        numEntries = 0;
+    }
+
+    /**
+     * @return - the slot where a cell's search starts (Fibonacci hashing, so that neighbouring cells are spread out).
+     */
+    private int home(int cell)
+    {
+        return (cell * 0x9E3779B9) >>> tableShift;
+    }
+
+    /**
+     * @return - the slot holding the given cell, or -1 if it isn't in the table.
+     */
+    private int find(int cell)
+    {
+        for (int slot = home(cell); tableCells[slot] != 0; slot = (slot + 1) & tableMask)
+            if (tableCells[slot] == cell + 1)
+                return slot;
+        return -1;
+    }
+
+    private void insert(int cell, int startValue)
+    {
+        // a copy only has room for the cells it started with, so undoing moves made before it was copied can fill it.
+        if (numEntries * 2 >= tableCells.length)
+        {
+            int[] oldCells = tableCells, oldValues = tableValues;
+            makeTable(tableCells.length);
+            for (int slot = 0; slot < oldCells.length; slot++)
+                if (oldCells[slot] != 0)
+                    insert(oldCells[slot] - 1, oldValues[slot]);
+        }
+        numEntries++;
+        int slot = home(cell);
+        while (tableCells[slot] != 0)
+            slot = (slot + 1) & tableMask;
+        tableCells[slot] = cell + 1;
+        tableValues[slot] = startValue;
+    }
+
+    /**
+     * empties a slot, then moves any later entries of the same run back into the gap if their search would pass
+     * through it - so that find() never needs "deleted" markers.
+     */
+    private void remove(int slot)
+    {
+        int gap = slot;
+        int next = slot;
+        while (true)
+        {
+            next = (next + 1) & tableMask;
+            if (tableCells[next] == 0)
+                break;
+            int wanted = home(tableCells[next] - 1);
+            // can the entry at "next" move to the gap? Only if the gap lies (cyclically) between its home and it.
+            if (((next - wanted) & tableMask) >= ((next - gap) & tableMask))
+            {
+                tableCells[gap] = tableCells[next];
+                tableValues[gap] = tableValues[next];
+                gap = next;
+            }
+        }
+        tableCells[gap] = 0;
+        tableValues[gap] = 0;
+        numEntries--;
+    }
+}
@@ -0,0 +1,38 @@
+/**
+ * A way of choosing moves: what the GamePanel, a Tournament or the GameServer asks when it is a computer player's turn.
+ * MiniMaxEngine looks a limited number of steps ahead through every move; MonteCarloEngine plays lots of random games
+ * to the end instead.
+ * *
+ * A strategy makes and undoes moves on the Board it is given while it thinks, so nobody else should be using that Board
+ * at the same time - but the board is always returned to its original condition.
+ */
+public interface Strategy
+{
+    /**
+     * @param board - the position to think about, with the computer to move
+     * @return - the move the computer should make
+     */
+    MoveDescription bestMoveForComputer(Board board);
+
+    /**
+     * @param board - the position to think about, with the human to move
+     * @return - the move the human should make (so that a strategy can play either side)
+     */
+    MoveDescription bestMoveForHuman(Board board);
+
+    /**
+     * tells the strategy, from any thread, to give the answer it has so far from the search in progress (if any) and
+     * every later one. This can't be undone: make a new one instead.
+     */
+    void stop();
+
+    /**
+     * @return - whether stop() has been called.
+     */
+    boolean isStopped();
+
+    /**
+     * @return - how many steps ahead (beyond the move itself) the most recent search looked.
+     */
+    int getDepthReached();
+}
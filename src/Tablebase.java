@@ -0,0 +1,275 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The exact outcome of every small endgame on one size of board, worked out ahead of time by TablebaseGenerator and
+ * kept in a file. MiniMaxEngine (see setTablebase()) plays any position the file covers by looking its moves up
+ * instead of searching them.
+ * *
+ * How a position plays out from here doesn't depend on the turn number or the scores so far - only on where the two
+ * players are standing, whose move it is, and which cells still show a number (and what number). So a position is
+ * covered if it is on a board of the right size, has at most maxCells cells left and none of them shows more than
+ * maxValue. Every such position has its own place in the file (see index()), holding a short: the score ranking still
+ * to come from there (the computer's points minus the human's, from now to the end of the game) if both sides play
+ * perfectly. Impossible positions - a live cell under a player, say - get places too, holding zero; it keeps the
+ * arithmetic simple.
+ * *
+ * The file is a header of six ints (MAGIC, VERSION, numRows, numCols, maxCells, maxValue) followed by the entries,
+ * all big-endian. It is memory-mapped rather than read in, so opening even a big one is instant, only the pages we
+ * actually look at are ever read from disk, and any number of engines (or programs) can share it.
+ */
+public class Tablebase
+{
+    static final int MAGIC = 0x47425442; // "GBTB"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 6 * Integer.BYTES;
+    static final int BYTES_PER_ENTRY = Short.BYTES;
+
+    private final int numRows, numCols, numCells;
+    private final int maxCells, maxValue;
+    private final long[][] binomials; // binomials[n][k] = n choose k, for n up to numCells and k up to maxCells
+    private final long[] valueCombinations; // how many ways k cells can show numbers from 1 to maxValue
+    private final long[] sectionStarts; // where the entries for the positions with k cells left begin
+    private final ByteBuffer entries; // the mapped file, or null for a Tablebase that only works out index()es
+
+    /**
+     * sets out where each position goes, for a tablebase of the given size.
+     * @param numRows - the number of rows on the board (at least 2)
+     * @param numCols - the number of columns on the board (at least 2)
+     * @param maxCells - the most cells that may be left in a covered position
+     * @param maxValue - the biggest number a cell may show in a covered position
+     * @param entries - the file, mapped, or null if there isn't one yet
+     * @throws IllegalArgumentException if there would be too many positions to put in one file.
+     */
+    Tablebase(int numRows, int numCols, int maxCells, int maxValue, ByteBuffer entries)
+    {
+        // (with only one row or column, a player can be boxed in with no move at all.)
+        if (numRows < 2 || numCols < 2 || maxCells < 0 || maxValue < 1 || (long) maxCells * maxValue > Short.MAX_VALUE)
+            throw new IllegalArgumentException("Hey, a tablebase for " + maxCells + " cells up to " + maxValue +
+                    " on a " + numRows + "x" + numCols + " board is no good.");
+        this.numRows = numRows;
+        this.numCols = numCols;
+        this.maxCells = maxCells;
+        this.maxValue = maxValue;
+        this.entries = entries;
+        numCells = numRows * numCols;
+        binomials = new long[numCells + 1][maxCells + 2];
+        for (int n = 0; n <= numCells; n++)
+        {
+            binomials[n][0] = 1;
+            for (int k = 1; k <= maxCells + 1 && k <= n; k++)
+                binomials[n][k] = binomials[n-1][k-1] + binomials[n-1][k];
+        }
+        valueCombinations = new long[maxCells + 1];
+        sectionStarts = new long[maxCells + 2];
+        try
+        {
+            valueCombinations[0] = 1;
+            for (int k = 1; k <= maxCells; k++)
+                valueCombinations[k] = Math.multiplyExact(valueCombinations[k-1], maxValue);
+            // for each number of cells left: where each player is, whose move it is, which cells, what numbers.
+            for (int k = 0; k <= maxCells; k++)
+                sectionStarts[k+1] = Math.addExact(sectionStarts[k], Math.multiplyExact(2L * numCells * numCells,
+                        Math.multiplyExact(binomials[numCells][k], valueCombinations[k])));
+        }
+        catch (ArithmeticException e)
+        {
+            sectionStarts[maxCells + 1] = Long.MAX_VALUE;
+        }
+        if (sectionStarts[maxCells + 1] > (Integer.MAX_VALUE - HEADER_BYTES) / BYTES_PER_ENTRY)
+            throw new IllegalArgumentException("Hey, a tablebase for " + maxCells + " cells up to " + maxValue +
+                    " on a " + numRows + "x" + numCols + " board won't fit in one file.");
+    }
+
+    /**
+     * maps a tablebase file written by TablebaseGenerator.
+     * @param file - where it is
+     * @return - the tablebase
+     * @throws IOException if the file can't be read, or isn't a tablebase.
+     */
+    public static Tablebase open(Path file) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            if (channel.size() < HEADER_BYTES || channel.size() > Integer.MAX_VALUE)
+                throw new IOException("Hey, " + file + " isn't a tablebase.");
+            // the mapping stays valid after the channel is closed.
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION)
+                throw new IOException("Hey, " + file + " isn't a tablebase (or is from a different version).");
+            Tablebase tablebase;
+            try
+            {
+                tablebase = new Tablebase(buffer.getInt(8), buffer.getInt(12), buffer.getInt(16), buffer.getInt(20),
+                        buffer);
+            }
+            catch (IllegalArgumentException e)
+            {
+                throw new IOException("Hey, the header of " + file + " doesn't make sense.", e);
+            }
+            if (channel.size() != HEADER_BYTES + tablebase.getNumEntries() * BYTES_PER_ENTRY)
+                throw new IOException("Hey, " + file + " is the wrong size - was it cut short?");
+            return tablebase;
+        }
+    }
+
+    public int getNumRows()
+    {
+        return numRows;
+    }
+
+    public int getNumCols()
+    {
+        return numCols;
+    }
+
+    /**
+     * @return - the most cells that may be left in a position this tablebase covers.
+     */
+    public int getMaxCells()
+    {
+        return maxCells;
+    }
+
+    /**
+     * @return - the biggest number any cell may show in a position this tablebase covers.
+     */
+    public int getMaxValue()
+    {
+        return maxValue;
+    }
+
+    /**
+     * @return - how many entries (one per position, possible or not) the tablebase has.
+     */
+    public long getNumEntries()
+    {
+        return sectionStarts[maxCells + 1];
+    }
+
+    /**
+     * @param board - any position
+     * @return - whether the position is in this tablebase.
+     */
+    public boolean covers(Board board)
+    {
+        return index(board) >= 0;
+    }
+
+    /**
+     * @param board - a position this tablebase covers (see covers())
+     * @return - what the score ranking will be at the end of the game if both sides play perfectly from here.
+     * @throws IllegalArgumentException if the position isn't covered.
+     */
+    public int getFinalScoreRanking(Board board)
+    {
+        long index = index(board);
+        if (index < 0)
+            throw new IllegalArgumentException("Hey, that position isn't in this tablebase.");
+        return board.getScoreRanking() + getEntry(index);
+    }
+
+    /**
+     * looks up which of the moves for the player whose turn it is lead to the best final score ranking for them.
+     * @param board - a position this tablebase covers (see covers()). Each move is tried on it, and undone again.
+     * @param bestMoves - where to put the (packed) moves that share the best final score ranking; room for four.
+     * @return - how many moves were put in bestMoves.
+     * @throws IllegalArgumentException if the position isn't covered.
+     */
+    public int getBestMoves(Board board, int[] bestMoves)
+    {
+        if (!covers(board))
+            throw new IllegalArgumentException("Hey, that position isn't in this tablebase.");
+        int whichPlayer = board.getTurn() % 2;
+        int[] moves = new int[4];
+        int numMoves = board.generateMoves(whichPlayer, moves, 0);
+        int numBestMoves = 0;
+        int bestRanking = 0;
+        for (int i = 0; i < numMoves; i++)
+        {
+            // every position after a covered one is covered too: no cell's number ever goes up.
+            board.makeMove(moves[i]);
+            int ranking = board.getScoreRanking() + getEntry(index(board));
+            board.undoMove(moves[i]);
+            boolean better = (whichPlayer == GameState.COMPUTER) ? ranking > bestRanking : ranking < bestRanking;
+            if (numBestMoves == 0 || better)
+            {
+                bestRanking = ranking;
+                numBestMoves = 0;
+            }
+            if (ranking == bestRanking)
+                bestMoves[numBestMoves++] = moves[i];
+        }
+        return numBestMoves;
+    }
+
+    /**
+     * @param board - any position
+     * @return - where that position's entry is, or -1 if this tablebase doesn't cover it.
+     */
+    private long index(Board board)
+    {
+        if (board.getNumRows() != numRows || board.getNumCols() != numCols || board.getNumLiveCells() > maxCells)
+            return -1;
+        int numLeft = 0;
+        long cellRank = 0, valueIndex = 0;
+        for (int cell = 0; cell < numCells; cell++)
+        {
+            int value = board.getValue(cell / numCols, cell % numCols);
+            if (value == 0)
+                continue;
+            if (value > maxValue)
+                return -1;
+            numLeft++;
+            cellRank += binomials[cell][numLeft];
+            valueIndex = valueIndex * maxValue + value - 1;
+        }
+        int[] human = board.getPlayerPosition(GameState.HUMAN);
+        int[] computer = board.getPlayerPosition(GameState.COMPUTER);
+        return index(human[0] * numCols + human[1], computer[0] * numCols + computer[1], board.getTurn() % 2,
+                numLeft, cellRank, valueIndex);
+    }
+
+    /**
+     * @param humanCell - where the human is standing (row * numCols + col)
+     * @param computerCell - where the computer is standing
+     * @param whoseMove - HUMAN or COMPUTER
+     * @param numLeft - how many cells still show a number (no more than maxCells)
+     * @param cells - those cells, in increasing order
+     * @param values - the number each of them shows (1 to maxValue)
+     * @return - where that position's entry is.
+     */
+    long index(int humanCell, int computerCell, int whoseMove, int numLeft, int[] cells, int[] values)
+    {
+        long cellRank = 0, valueIndex = 0;
+        for (int i = 0; i < numLeft; i++)
+        {
+            cellRank += binomials[cells[i]][i+1];
+            valueIndex = valueIndex * maxValue + values[i] - 1;
+        }
+        return index(humanCell, computerCell, whoseMove, numLeft, cellRank, valueIndex);
+    }
+
+    /**
+     * @param cellRank - which set of numLeft cells is left: the sum, over the cells in increasing order, of
+     *                 (cell choose how many cells up to and including it). This numbers the sets from zero up.
+     * @param valueIndex - the numbers those cells show, less one, read as the digits of a base maxValue number.
+     */
+    private long index(int humanCell, int computerCell, int whoseMove, int numLeft, long cellRank, long valueIndex)
+    {
+        long placement = ((long) humanCell * numCells + computerCell) * 2 + whoseMove;
+        return sectionStarts[numLeft]
+                + (placement * binomials[numCells][numLeft] + cellRank) * valueCombinations[numLeft] + valueIndex;
+    }
+
+    /**
+     * @return - the score ranking still to come from the position with the given index.
+     */
+    private int getEntry(long index)
+    {
+        return entries.getShort(HEADER_BYTES + (int) index * BYTES_PER_ENTRY);
+    }
+}
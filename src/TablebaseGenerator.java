@@ -0,0 +1,186 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * A command-line tool that works out every position a Tablebase covers and writes the file.
+ * *
+ * There is no search tree here: after any move, every number on the board drops by one, so the position it leads to
+ * either has fewer cells left or has the same cells showing smaller numbers. Working out a position therefore only
+ * ever needs positions that are "smaller" still, and each one is worked out exactly once - the first time it is
+ * needed - and remembered in a short[] with a place for every entry in the file. Each of those costs at most four
+ * look-ups, so even millions of positions take seconds.
+ * *
+ * Usage: java TablebaseGenerator file rows cols maxCells maxValue
+ *     e.g. "java TablebaseGenerator endgames4x4.tb 4 4 2 9", then "java APMiniMaxRunner size=4 values=1-9
+ *     tablebase=endgames4x4.tb" to play with it.
+ */
+public class TablebaseGenerator
+{
+    // marks the entries we haven't worked out yet (no real score ranking gets anywhere near it).
+    private static final short UNSOLVED = Short.MIN_VALUE;
+
+    private final int numRows, numCols, numCells;
+    private final int maxCells, maxValue;
+    private final Tablebase layout; // says where each position's entry goes
+    private final short[] entries;
+
+    /**
+     * @param numRows - the number of rows on the board (at least 2)
+     * @param numCols - the number of columns on the board (at least 2)
+     * @param maxCells - the most cells that may be left in a covered position
+     * @param maxValue - the biggest number a cell may show in a covered position
+     * @throws IllegalArgumentException if the tablebase would be too big.
+     */
+    public TablebaseGenerator(int numRows, int numCols, int maxCells, int maxValue)
+    {
+        this.numRows = numRows;
+        this.numCols = numCols;
+        this.maxCells = maxCells;
+        this.maxValue = maxValue;
+        numCells = numRows * numCols;
+        layout = new Tablebase(numRows, numCols, maxCells, maxValue, null);
+        entries = new short[(int) layout.getNumEntries()];
+        Arrays.fill(entries, UNSOLVED);
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        if (args.length != 5)
+            throw new IllegalArgumentException("Hey, usage: java TablebaseGenerator file rows cols maxCells maxValue");
+        TablebaseGenerator generator = new TablebaseGenerator(Integer.parseInt(args[1]), Integer.parseInt(args[2]),
+                Integer.parseInt(args[3]), Integer.parseInt(args[4]));
+        long start = System.nanoTime();
+        generator.solveAll();
+        generator.write(Path.of(args[0]));
+        System.out.printf("%d entries (%d bytes) in %.1f s%n", generator.entries.length,
+                Files.size(Path.of(args[0])), (System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * works out every possible position the tablebase covers.
+     */
+    public void solveAll()
+    {
+        int[] cells = new int[maxCells];
+        int[] values = new int[maxCells];
+        for (int numLeft = 0; numLeft <= maxCells; numLeft++)
+            for (int humanCell = 0; humanCell < numCells; humanCell++)
+                for (int computerCell = 0; computerCell < numCells; computerCell++)
+                    if (computerCell != humanCell)
+                        for (int whoseMove = GameState.HUMAN; whoseMove <= GameState.COMPUTER; whoseMove++)
+                            solveAllWithCells(humanCell, computerCell, whoseMove, numLeft, cells, values, 0, 0);
+    }
+
+    /**
+     * works out every position with the players where they are and numLeft cells left, the first of which are already
+     * chosen. (The cells under the players can't be left, so they are skipped.)
+     * @param numChosen - how many of the cells have been chosen so far
+     * @param nextCell - the lowest cell that may be chosen next
+     */
+    private void solveAllWithCells(int humanCell, int computerCell, int whoseMove, int numLeft, int[] cells,
+                                   int[] values, int numChosen, int nextCell)
+    {
+        if (numChosen == numLeft)
+        {
+            // count through every combination of numbers, like an odometer.
+            Arrays.fill(values, 0, numLeft, 1);
+            while (true)
+            {
+                solve(humanCell, computerCell, whoseMove, numLeft, cells, values);
+                int i = numLeft - 1;
+                while (i >= 0 && values[i] == maxValue)
+                    values[i--] = 1;
+                if (i < 0)
+                    return;
+                values[i]++;
+            }
+        }
+        for (int cell = nextCell; cell <= numCells - (numLeft - numChosen); cell++)
+            if (cell != humanCell && cell != computerCell)
+            {
+                cells[numChosen] = cell;
+                solveAllWithCells(humanCell, computerCell, whoseMove, numLeft, cells, values, numChosen + 1, cell + 1);
+            }
+    }
+
+    /**
+     * @param humanCell - where the human is standing (row * numCols + col)
+     * @param computerCell - where the computer is standing
+     * @param whoseMove - HUMAN or COMPUTER
+     * @param numLeft - how many cells still show a number
+     * @param cells - those cells, in increasing order (not changed)
+     * @param values - the number each of them shows (not changed)
+     * @return - the score ranking still to come from this position, with perfect play on both sides.
+     */
+    private int solve(int humanCell, int computerCell, int whoseMove, int numLeft, int[] cells, int[] values)
+    {
+        int index = (int) layout.index(humanCell, computerCell, whoseMove, numLeft, cells, values);
+        if (entries[index] != UNSOLVED)
+            return entries[index];
+
+        int best = 0;
+        if (numLeft > 0) // (otherwise the game is over, and there is nothing more to come.)
+        {
+            int from = (whoseMove == GameState.HUMAN) ? humanCell : computerCell;
+            int other = (whoseMove == GameState.HUMAN) ? computerCell : humanCell;
+            int[] nextCells = new int[numLeft];
+            int[] nextValues = new int[numLeft];
+            best = (whoseMove == GameState.COMPUTER) ? -MiniMaxEngine.INFINITY : MiniMaxEngine.INFINITY;
+            for (int[] delta : GameState.DELTAS)
+            {
+                int r = from / numCols + delta[0];
+                int c = from % numCols + delta[1];
+                int to = r * numCols + c;
+                if (r < 0 || c < 0 || r >= numRows || c >= numCols || to == other)
+                    continue;
+                // gobble up the destination, then every other number drops by one (and those showing 1 run out).
+                int pickedUp = 0, numNextLeft = 0;
+                for (int i = 0; i < numLeft; i++)
+                    if (cells[i] == to)
+                        pickedUp = values[i];
+                    else if (values[i] > 1)
+                    {
+                        nextCells[numNextLeft] = cells[i];
+                        nextValues[numNextLeft++] = values[i] - 1;
+                    }
+                int ranking;
+                if (whoseMove == GameState.COMPUTER)
+                {
+                    ranking = pickedUp + solve(humanCell, to, GameState.HUMAN, numNextLeft, nextCells, nextValues);
+                    best = Math.max(best, ranking);
+                }
+                else
+                {
+                    ranking = -pickedUp + solve(to, computerCell, GameState.COMPUTER, numNextLeft, nextCells,
+                            nextValues);
+                    best = Math.min(best, ranking);
+                }
+            }
+        }
+        entries[index] = (short) best;
+        return best;
+    }
+
+    /**
+     * writes the tablebase file (see Tablebase for the format). Entries for impossible positions are written as zero.
+     * @param file - where to put it
+     */
+    public void write(Path file) throws IOException
+    {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file))))
+        {
+            out.writeInt(Tablebase.MAGIC);
+            out.writeInt(Tablebase.VERSION);
+            out.writeInt(numRows);
+            out.writeInt(numCols);
+            out.writeInt(maxCells);
+            out.writeInt(maxValue);
+            for (short entry : entries)
+                out.writeShort(entry == UNSOLVED ? 0 : entry);
+        }
+    }
+}
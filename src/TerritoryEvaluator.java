@@ -0,0 +1,211 @@
+/**
+ * An Evaluator that adds to the score ranking a share of the numbers each player is closer to than their opponent
+ * ("territory" - they are likely to get there first) and a little for how many moves each player has ("mobility").
+ * *
+ * Nothing on the board gets in anyone's way except the other player, so how far a player is from a cell is just the
+ * number of rows plus the number of columns between them. The human's distance minus the computer's distance then
+ * splits into a part that only depends on the row and a part that only depends on the column, and the column part only
+ * ever goes one way as the column goes up. So in every row, the cells the human is closer to are all at one end: a
+ * run of columns we can find by bisection. We keep, for each row, a Fenwick tree (binary indexed tree) of how many
+ * cells still show a number and what they started with, column by column - so totalling up a run of columns is
+ * quick, and so is taking a cell out when it is gobbled or runs out. evaluate() then costs a few steps per row, not
+ * one per cell, and makeMove()/undoMove() only touch the cells that actually changed.
+ * *
+ * A tie (both players the same distance away) goes to whoever moves next.
+ */
+public class TerritoryEvaluator implements Evaluator
+{
+    // by default, count this percentage of the numbers in each player's territory as good as won.
+    public static final int DEFAULT_TERRITORY_PERCENT = 25;
+    // by default, each move a player has (out of at most four) is worth this much.
+    public static final int DEFAULT_MOBILITY_WEIGHT = 2;
+
+    private final int territoryPercent, mobilityWeight;
+
+    private int numRows, numCols;
+    private int[] startValues; // each cell's number at turn zero, or 0 once gobbled (our own copy, kept up to date)
+    private int[][] cellsWithStartValue; // for each start value, the cells that had it at turn zero
+    // for each row, Fenwick trees over the columns of the cells that still show a number: how many, and the total of
+    // their start values. (Index 0 isn't used - Fenwick trees count from 1.)
+    private int[][] rowCounts, rowStartTotals;
+    private int liveCount; // how many cells still show a number, all told
+    private long liveStartTotal; // and the total of their start values
+
+    public TerritoryEvaluator()
+    {
+        this(DEFAULT_TERRITORY_PERCENT, DEFAULT_MOBILITY_WEIGHT);
+    }
+
+    /**
+     * @param territoryPercent - what percentage of the numbers in each player's territory to count as theirs
+     * @param mobilityWeight - what each move a player could make is worth
+     */
+    public TerritoryEvaluator(int territoryPercent, int mobilityWeight)
+    {
+        this.territoryPercent = territoryPercent;
+        this.mobilityWeight = mobilityWeight;
+    }
+
+    public void attach(Board board)
+    {
+        numRows = board.getNumRows();
+        numCols = board.getNumCols();
+        startValues = new int[numRows * numCols];
+        rowCounts = new int[numRows][numCols + 1];
+        rowStartTotals = new int[numRows][numCols + 1];
+        liveCount = 0;
+        liveStartTotal = 0;
+        int[] numCellsWithStartValue = new int[board.getMaxValue() + 1];
+        for (int cell = 0; cell < startValues.length; cell++)
+        {
+            startValues[cell] = board.getStartValue(cell / numCols, cell % numCols);
+            numCellsWithStartValue[startValues[cell]]++;
+            if (startValues[cell] > board.getTurn())
+                add(cell, +1);
+        }
+        cellsWithStartValue = new int[numCellsWithStartValue.length][];
+        for (int value = 1; value < numCellsWithStartValue.length; value++)
+            cellsWithStartValue[value] = new int[numCellsWithStartValue[value]];
+        int[] filled = new int[numCellsWithStartValue.length];
+        for (int cell = 0; cell < startValues.length; cell++)
+            if (startValues[cell] != 0)
+                cellsWithStartValue[startValues[cell]][filled[startValues[cell]]++] = cell;
+    }
+
+    public void moveMade(Board board, int move)
+    {
+        int turn = board.getTurn(); // the turn after the move
+        int pickedUp = Move.getWhatIsPickedUp(move);
+        if (pickedUp > 0)
+        {
+            int[] pos = board.getPlayerPosition(Move.getWhichPlayerIsMoving(move));
+            int cell = pos[0] * numCols + pos[1];
+            add(cell, -1);
+            startValues[cell] = 0;
+        }
+        // the cells that started with the value "turn" have just run out.
+        if (turn < cellsWithStartValue.length)
+            for (int cell : cellsWithStartValue[turn])
+                if (startValues[cell] == turn)
+                    add(cell, -1);
+    }
+
+    public void moveUndone(Board board, int move)
+    {
+        int turn = board.getTurn(); // the turn before the move
+        if (turn + 1 < cellsWithStartValue.length)
+            for (int cell : cellsWithStartValue[turn + 1])
+                if (startValues[cell] == turn + 1)
+                    add(cell, +1);
+        int pickedUp = Move.getWhatIsPickedUp(move);
+        if (pickedUp > 0)
+        {
+            int[] pos = board.getPlayerPosition(Move.getWhichPlayerIsMoving(move));
+            int[] delta = GameState.DELTAS[Move.getDirection(move)];
+            int cell = (pos[0] + delta[0]) * numCols + pos[1] + delta[1];
+            startValues[cell] = pickedUp + turn;
+            add(cell, +1);
+        }
+    }
+
+    public int evaluate(Board board)
+    {
+        int turn = board.getTurn();
+        int[] human = board.getPlayerPosition(GameState.HUMAN);
+        int[] computer = board.getPlayerPosition(GameState.COMPUTER);
+        boolean humanToMove = turn % 2 == GameState.HUMAN;
+
+        // what the cells the human is closer to are worth right now.
+        long humanTerritory = 0;
+        for (int r = 0; r < numRows; r++)
+        {
+            // the human gets column c of this row if columnDifference(c) < threshold.
+            int threshold = -(Math.abs(r - human[0]) - Math.abs(r - computer[0])) + (humanToMove ? 1 : 0);
+            int from, to; // the run of columns [from, to) that the human gets
+            if (human[1] == computer[1])
+            {
+                from = 0;
+                to = (threshold > 0) ? numCols : 0;
+            }
+            else
+            {
+                int numCloser = countColumnsCloserToHuman(human[1], computer[1], threshold);
+                from = (human[1] < computer[1]) ? 0 : numCols - numCloser;
+                to = from + numCloser;
+            }
+            int count = prefix(rowCounts[r], to) - prefix(rowCounts[r], from);
+            long startTotal = prefix(rowStartTotals[r], to) - prefix(rowStartTotals[r], from);
+            humanTerritory += startTotal - (long) count * turn;
+        }
+        long computerTerritory = liveStartTotal - (long) liveCount * turn - humanTerritory;
+
+        int mobility = numMoves(board, GameState.COMPUTER) - numMoves(board, GameState.HUMAN);
+        return board.getScoreRanking() + (int) ((computerTerritory - humanTerritory) * territoryPercent / 100)
+                + mobilityWeight * mobility;
+    }
+
+    /**
+     * @return - how many columns c have |c - humanCol| - |c - computerCol| < threshold. (These are all at the left of
+     * the board if the human is left of the computer, and all at the right if not.)
+     */
+    private int countColumnsCloserToHuman(int humanCol, int computerCol, int threshold)
+    {
+        // bisect for the number of columns, counting in from the human's side, that pass.
+        int low = 0, high = numCols;
+        while (low < high)
+        {
+            int middle = (low + high) >>> 1;
+            int c = (humanCol < computerCol) ? middle : numCols - 1 - middle;
+            if (Math.abs(c - humanCol) - Math.abs(c - computerCol) < threshold)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low;
+    }
+
+    private int numMoves(Board board, int whichPlayer)
+    {
+        int[] pos = board.getPlayerPosition(whichPlayer);
+        int[] other = board.getPlayerPosition(1 - whichPlayer);
+        int count = 0;
+        for (int[] delta : GameState.DELTAS)
+        {
+            int r = pos[0] + delta[0];
+            int c = pos[1] + delta[1];
+            if (r >= 0 && c >= 0 && r < numRows && c < numCols && (r != other[0] || c != other[1]))
+                count++;
+        }
+        return count;
+    }
+
+    /**
+     * puts a cell that shows a number into the row totals, or takes it out.
+     * @param cell - the cell number
+     * @param sign - +1 to put it in, -1 to take it out
+     */
+    private void add(int cell, int sign)
+    {
+        int[] counts = rowCounts[cell / numCols];
+        int[] totals = rowStartTotals[cell / numCols];
+        int value = startValues[cell];
+        for (int i = cell % numCols + 1; i <= numCols; i += i & -i)
+        {
+            counts[i] += sign;
+            totals[i] += sign * value;
+        }
+        liveCount += sign;
+        liveStartTotal += sign * value;
+    }
+
+    /**
+     * @return - the total of the first n columns in a row's Fenwick tree.
+     */
+    private static int prefix(int[] tree, int n)
+    {
+        int total = 0;
+        for (int i = n; i > 0; i -= i & -i)
+            total += tree[i];
+        return total;
+    }
+}
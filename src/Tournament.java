@@ -0,0 +1,372 @@
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A command-line tool that plays one engine set-up ("A") against another ("B") for as many games as we like, without
+ * opening a window, so that we can tell whether a change to the engine has made it stronger or weaker - and faster or
+ * slower - rather than guessing from a few games clicked through by hand.
+ * *
+ * Every board comes from a seed (firstSeed, firstSeed+1, ...), and every board is played twice, with A taking the
+ * computer's side in one game and the human's in the other, so that neither gets the luckier side of a board. The
+ * games are shared out between a pool of threads (one per processor unless we say otherwise); each game gets its own
+ * engines and its own Board, so nothing is shared but the latency histograms.
+ * *
+ * It prints a summary: A's wins, losses and draws, its score (a win is 1, a draw 1/2) with a 95% confidence interval,
+ * the average score margin, and percentiles of how long each side took per move. It can also write one CSV line per
+ * game, the summary - with the full latency histograms - as JSON, and every game, move by move, to a file of
+ * GameRecords.
+ * *
+ * Usage: java Tournament [games=200] [a=time:50,eval] [b=time:50] [size=6 or size=6x8] [values=10-99] [seed=0]
+ *                        [threads=8] [csv=games.csv] [json=summary.json] [record=games.rec]
+ * An engine set-up is a comma-separated list of any of:
+ *     depth:5     look a fixed 5 steps ahead (the default is MiniMaxEngine.MAX_STEPS_TO_LOOK)
+ *     time:50     think for 50 ms per move (iterative deepening)
+ *     nodes:8000  visit 8000 nodes per move (iterative deepening; unlike time, the same on any machine)
+ *     eval        judge the leaves with a TerritoryEvaluator
+ *     noab        turn alpha-beta pruning off
+ *     endgame:4   search to the end of the game once 4 or fewer cells are left
+ *     mcts        play with a MonteCarloEngine instead of minimax (only time and playouts apply); "mcts:4" searches
+ *                 with 4 threads
+ *     playouts:5000  make 5000 playouts per move (MonteCarloEngine only; like nodes, the same on any machine)
+ * e.g. "java Tournament games=1000 a=nodes:2000,eval b=nodes:8000 csv=games.csv"
+ */
+public class Tournament
+{
+    // the latency histograms have a bucket for each power of two microseconds, up to about half an hour.
+    private static final int NUM_LATENCY_BUCKETS = 32;
+
+    public static void main(String[] args) throws Exception
+    {
+        int numGames = 200;
+        String specA = "time:50,eval", specB = "time:50";
+        int numRows = GameState.NUM_ROWS_AND_COLS, numCols = GameState.NUM_ROWS_AND_COLS;
+        int minValue = GameState.MIN_VALUE, maxValue = GameState.MAX_VALUE;
+        long firstSeed = 0;
+        int numThreads = Runtime.getRuntime().availableProcessors();
+        Path csvFile = null, jsonFile = null;
+        GameRecordWriter recorder = null;
+        for (String arg : args)
+        {
+            String value = arg.substring(arg.indexOf('=') + 1);
+            if (arg.startsWith("games="))
+                numGames = Integer.parseInt(value);
+            else if (arg.startsWith("a="))
+                specA = value;
+            else if (arg.startsWith("b="))
+                specB = value;
+            else if (arg.startsWith("size="))
+            {
+                String[] size = value.split("x");
+                numRows = Integer.parseInt(size[0]);
+                numCols = Integer.parseInt(size[size.length-1]);
+            }
+            else if (arg.startsWith("values="))
+            {
+                String[] range = value.split("-");
+                minValue = Integer.parseInt(range[0]);
+                maxValue = Integer.parseInt(range[1]);
+            }
+            else if (arg.startsWith("seed="))
+                firstSeed = Long.parseLong(value);
+            else if (arg.startsWith("threads="))
+                numThreads = Integer.parseInt(value);
+            else if (arg.startsWith("csv="))
+                csvFile = Path.of(value);
+            else if (arg.startsWith("json="))
+                jsonFile = Path.of(value);
+            else if (arg.startsWith("record="))
+                recorder = new GameRecordWriter(Path.of(value));
+            else
+                throw new IllegalArgumentException("Hey, I don't know what \"" + arg + "\" means.");
+        }
+        GameState.checkSize(numRows, numCols, minValue, maxValue);
+
+        Player a = new Player(specA), b = new Player(specB);
+        ExecutorService pool = Executors.newFixedThreadPool(numThreads);
+        List<Future<GameResult>> futures = new ArrayList<>();
+        for (int game = 0; game < numGames; game++)
+        {
+            long seed = firstSeed + game / 2;
+            int sideForA = (game % 2 == 0) ? GameState.COMPUTER : GameState.HUMAN;
+            int rows = numRows, cols = numCols, min = minValue, max = maxValue;
+            GameRecordWriter gameRecorder = recorder;
+            futures.add(pool.submit(() -> play(new GameState(rows, cols, min, max, new Random(seed)), seed,
+                    sideForA, a, b, gameRecorder)));
+        }
+        List<GameResult> results = new ArrayList<>();
+        for (Future<GameResult> future : futures)
+            results.add(future.get());
+        pool.shutdown();
+        if (recorder != null)
+            recorder.close();
+
+        Summary summary = new Summary(results);
+        summary.print(a, b, numThreads);
+        if (csvFile != null)
+            writeCsv(csvFile, results);
+        if (jsonFile != null)
+            Files.writeString(jsonFile, summary.toJson(a, b));
+    }
+
+    /**
+     * plays one game between A and B to the end.
+     * @param board - the board to play on, at the start of the game
+     * @param seed - the seed the board was made from (also used to break the engines' ties)
+     * @param sideForA - which side A plays: HUMAN or COMPUTER
+     * @param recorder - where to write the game, or null
+     * @return - how it went
+     */
+    private static GameResult play(Board board, long seed, int sideForA, Player a, Player b,
+                                   GameRecordWriter recorder) throws IOException
+    {
+        GameRecord record = (recorder == null) ? null : new GameRecord(board);
+        Player[] players = new Player[2];
+        players[sideForA] = a;
+        players[1 - sideForA] = b;
+        Strategy[] engines = {players[0].newEngine(seed), players[1].newEngine(seed)};
+        while (!board.isGameOver())
+        {
+            int whichPlayer = board.getTurn() % 2;
+            long start = System.nanoTime();
+            MoveDescription move = (whichPlayer == GameState.COMPUTER)
+                    ? engines[whichPlayer].bestMoveForComputer(board)
+                    : engines[whichPlayer].bestMoveForHuman(board);
+            long nanos = System.nanoTime() - start;
+            players[whichPlayer].recordLatency(nanos);
+            board.makeMove(move);
+            if (record != null)
+                record.addMove(move, nanos, engines[whichPlayer].getDepthReached());
+        }
+        if (record != null)
+            recorder.write(record);
+        GameResult result = new GameResult();
+        result.seed = seed;
+        result.sideForA = sideForA;
+        result.scoreA = board.getScores()[sideForA];
+        result.scoreB = board.getScores()[1 - sideForA];
+        result.numMoves = board.getTurn();
+        return result;
+    }
+
+    private static void writeCsv(Path file, List<GameResult> results) throws IOException
+    {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file)))
+        {
+            out.println("game,seed,aPlays,aScore,bScore,margin,moves");
+            for (int game = 0; game < results.size(); game++)
+            {
+                GameResult result = results.get(game);
+                out.println(game + "," + result.seed + "," + (result.sideForA == GameState.COMPUTER ? "computer" :
+                        "human") + "," + result.scoreA + "," + result.scoreB + "," + (result.scoreA - result.scoreB) +
+                        "," + result.numMoves);
+            }
+        }
+    }
+
+    /**
+     * @param nanos - how long something took
+     * @return - which latency bucket it goes in: bucket b holds times of less than 2^b microseconds (and at least
+     * 2^(b-1), except for bucket 0).
+     */
+    private static int latencyBucket(long nanos)
+    {
+        long micros = nanos / 1000;
+        return Math.min(NUM_LATENCY_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+    }
+
+    /**
+     * one side of the tournament: how to set up its engine, and how long its moves have taken.
+     */
+    static class Player
+    {
+        private final String spec;
+        private int stepsToLook = MiniMaxEngine.MAX_STEPS_TO_LOOK;
+        private long timeBudgetMillis, nodeBudget;
+        private boolean useEvaluator, useAlphaBeta = true;
+        private int endgameCells;
+        private int monteCarloThreads; // 0 for minimax
+        private long playoutBudget;
+        private final AtomicLongArray latencies = new AtomicLongArray(NUM_LATENCY_BUCKETS); // moves per bucket
+        private final AtomicLongArray totals = new AtomicLongArray(3); // moves, total nanos, longest nanos
+
+        /**
+         * @param spec - an engine set-up, e.g. "time:50,eval" (see the class comment)
+         */
+        Player(String spec)
+        {
+            this.spec = spec;
+            for (String option : spec.split(","))
+            {
+                String[] parts = option.split(":");
+                switch (parts[0])
+                {
+                    case "depth" -> stepsToLook = Integer.parseInt(parts[1]);
+                    case "time" -> timeBudgetMillis = Long.parseLong(parts[1]);
+                    case "nodes" -> nodeBudget = Long.parseLong(parts[1]);
+                    case "eval" -> useEvaluator = true;
+                    case "noab" -> useAlphaBeta = false;
+                    case "endgame" -> endgameCells = Integer.parseInt(parts[1]);
+                    case "mcts" -> monteCarloThreads = parts.length > 1 ? Integer.parseInt(parts[1]) : 1;
+                    case "playouts" -> playoutBudget = Long.parseLong(parts[1]);
+                    default -> throw new IllegalArgumentException("Hey, I don't know what \"" + option + "\" means " +
+                            "in \"" + spec + "\".");
+                }
+            }
+        }
+
+        /**
+         * @param seed - for breaking ties (or for the playouts), so a game with only node or playout budgets plays the
+         *             same way every time
+         * @return - a new engine set up this way (with its own transposition table and evaluator, or its own trees)
+         */
+        Strategy newEngine(long seed)
+        {
+            if (monteCarloThreads > 0)
+            {
+                MonteCarloEngine engine = new MonteCarloEngine(monteCarloThreads);
+                engine.setSeed(seed);
+                engine.setTimeBudget(timeBudgetMillis);
+                engine.setPlayoutBudget(playoutBudget);
+                return engine;
+            }
+            MiniMaxEngine engine = new MiniMaxEngine(stepsToLook);
+            engine.setTranspositionTable(new TranspositionTable(ParallelSearch.TABLE_MEGABYTES_PER_THREAD));
+            engine.setSeed(seed);
+            engine.setTimeBudget(timeBudgetMillis);
+            engine.setNodeBudget(nodeBudget);
+            engine.setUseAlphaBeta(useAlphaBeta);
+            engine.setEndgameThreshold(endgameCells);
+            if (useEvaluator)
+                engine.setEvaluator(new TerritoryEvaluator());
+            return engine;
+        }
+
+        void recordLatency(long nanos)
+        {
+            latencies.incrementAndGet(latencyBucket(nanos));
+            totals.incrementAndGet(0);
+            totals.addAndGet(1, nanos);
+            totals.accumulateAndGet(2, nanos, Math::max);
+        }
+
+        /**
+         * @param fraction - e.g. 0.99 for the 99th percentile
+         * @return - the top of the histogram bucket that percentile of moves fall in, in milliseconds.
+         */
+        double getLatencyPercentileMillis(double fraction)
+        {
+            long wanted = (long) Math.ceil(fraction * totals.get(0));
+            long seen = 0;
+            for (int bucket = 0; bucket < NUM_LATENCY_BUCKETS; bucket++)
+            {
+                seen += latencies.get(bucket);
+                if (seen >= wanted)
+                    return (1L << bucket) / 1000.0;
+            }
+            return (1L << (NUM_LATENCY_BUCKETS - 1)) / 1000.0;
+        }
+
+        double getMeanLatencyMillis()
+        {
+            return totals.get(0) == 0 ? 0 : totals.get(1) / 1e6 / totals.get(0);
+        }
+    }
+
+    /**
+     * how one game went.
+     */
+    private static class GameResult
+    {
+        long seed;
+        int sideForA;
+        int scoreA, scoreB;
+        int numMoves;
+    }
+
+    /**
+     * the totals over all the games, from A's point of view.
+     */
+    private static class Summary
+    {
+        final int numGames, wins, losses, draws;
+        final double score, confidence95, meanMargin, marginStdDev;
+
+        Summary(List<GameResult> results)
+        {
+            numGames = results.size();
+            int won = 0, lost = 0;
+            double marginTotal = 0, marginSquaresTotal = 0;
+            for (GameResult result : results)
+            {
+                int margin = result.scoreA - result.scoreB;
+                if (margin > 0)
+                    won++;
+                else if (margin < 0)
+                    lost++;
+                marginTotal += margin;
+                marginSquaresTotal += (double) margin * margin;
+            }
+            wins = won;
+            losses = lost;
+            draws = numGames - won - lost;
+            score = numGames == 0 ? 0 : (wins + draws / 2.0) / numGames;
+            // (a normal approximation - good enough for the hundreds of games we'd want anyway.)
+            confidence95 = numGames == 0 ? 0 : 1.96 * Math.sqrt(score * (1 - score) / numGames);
+            meanMargin = numGames == 0 ? 0 : marginTotal / numGames;
+            marginStdDev = numGames == 0 ? 0 :
+                    Math.sqrt(Math.max(0, marginSquaresTotal / numGames - meanMargin * meanMargin));
+        }
+
+        void print(Player a, Player b, int numThreads)
+        {
+            System.out.printf(Locale.ROOT, "A = %s, B = %s: %d games on %d threads%n", a.spec, b.spec, numGames,
+                    numThreads);
+            System.out.printf(Locale.ROOT, "A won %d, lost %d, drew %d: score %.3f +/- %.3f%n", wins, losses, draws,
+                    score, confidence95);
+            System.out.printf(Locale.ROOT, "margin (A - B) %.1f on average, standard deviation %.1f%n", meanMargin,
+                    marginStdDev);
+            for (Player player : new Player[]{a, b})
+                System.out.printf(Locale.ROOT, "%s: %d moves, mean %.2f ms, p50 < %.3f ms, p90 < %.3f ms, " +
+                        "p99 < %.3f ms, max %.2f ms%n", player == a ? "A" : "B", player.totals.get(0),
+                        player.getMeanLatencyMillis(), player.getLatencyPercentileMillis(0.5),
+                        player.getLatencyPercentileMillis(0.9), player.getLatencyPercentileMillis(0.99),
+                        player.totals.get(2) / 1e6);
+        }
+
+        String toJson(Player a, Player b)
+        {
+            StringBuilder json = new StringBuilder();
+            json.append(String.format(Locale.ROOT, "{\n  \"games\": %d, \"wins\": %d, \"losses\": %d, \"draws\": %d," +
+                    "\n  \"score\": %.4f, \"confidence95\": %.4f, \"meanMargin\": %.2f, \"marginStdDev\": %.2f,\n",
+                    numGames, wins, losses, draws, score, confidence95, meanMargin, marginStdDev));
+            for (Player player : new Player[]{a, b})
+            {
+                json.append(String.format(Locale.ROOT, "  \"%s\": {\"engine\": \"%s\", \"moves\": %d, " +
+                        "\"meanMillis\": %.3f, \"maxMillis\": %.3f,\n    \"latencyHistogram\": [",
+                        player == a ? "a" : "b", player.spec, player.totals.get(0), player.getMeanLatencyMillis(),
+                        player.totals.get(2) / 1e6));
+                // only the buckets from the first to the last that has anything in it.
+                int first = 0, last = NUM_LATENCY_BUCKETS - 1;
+                while (first < last && player.latencies.get(first) == 0)
+                    first++;
+                while (last > first && player.latencies.get(last) == 0)
+                    last--;
+                for (int bucket = first; bucket <= last; bucket++)
+                    json.append(String.format(Locale.ROOT, "%s{\"underMicros\": %d, \"moves\": %d}",
+                            bucket == first ? "" : ", ", 1L << bucket, player.latencies.get(bucket)));
+                json.append(player == a ? "]},\n" : "]}\n");
+            }
+            return json.append("}\n").toString();
+        }
+    }
+}
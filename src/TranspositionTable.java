@@ -0,0 +1,185 @@
+/**
+ * Remembers what the search found out about positions it has already looked at, keyed by their Zobrist key, so that
+ * reaching the same position by a different order of moves doesn't mean searching it all over again.
+ * *
+ * Everything lives in two flat long[] arrays (no HashMap, no objects per entry), sized once from a memory cap. The
+ * arrays are split into buckets of two slots: the first slot keeps whichever entry was searched deepest, the second
+ * always takes the newest entry. Each slot holds the full 64-bit key plus one packed "data" long:
+ *     bits  0-31  score
+ *     bits 32-39  depth (steps left to look when it was searched)
+ *     bits 40-41  bound type (EXACT, LOWER_BOUND or UPPER_BOUND)
+ *     bits 42-44  best move + 1 (zero if there wasn't one)
+ *     bit  45     set if the slot is in use
+ * *
+ * A table is not thread-safe; give each searching thread its own.
+ */
+public class TranspositionTable
+{
+    // what kind of number the stored score is:
+    public static final int EXACT = 0;       // the true score
+    public static final int LOWER_BOUND = 1; // the search was cut off; the true score is at least this much
+    public static final int UPPER_BOUND = 2; // nothing reached alpha; the true score is at most this much
+
+    public static final int NO_MOVE = -1;
+
+    private static final int BYTES_PER_SLOT = 16; // one key long plus one data long
+    private static final long IN_USE = 1L << 45;
+
+    private final long[] keys;
+    private final long[] data;
+    private final int bucketMask;
+
+    private long probes, hits, collisions, stores;
+
+    /**
+     * @param megabytes - the most memory the table may use. It is rounded down to a power of two number of buckets.
+     */
+    public TranspositionTable(int megabytes)
+    {
+        long maxBuckets = Math.max(1, (long) megabytes * 1024 * 1024 / (2 * BYTES_PER_SLOT));
+        int numBuckets = Integer.highestOneBit((int) Math.min(maxBuckets, 1 << 29));
+        keys = new long[2 * numBuckets];
+        data = new long[2 * numBuckets];
+        bucketMask = numBuckets - 1;
+    }
+
+    /**
+     * looks for the given position in the table.
+     * @param key - the position's Zobrist key
+     * @return - the slot it is stored in (to pass to getScore() etc.), or -1 if it isn't in the table.
+     */
+    public int probe(long key)
+    {
+        probes++;
+        int slot = bucketOf(key);
+        if (keys[slot] == key && (data[slot] & IN_USE) != 0)
+        {
+            hits++;
+            return slot;
+        }
+        slot++;
+        if (keys[slot] == key && (data[slot] & IN_USE) != 0)
+        {
+            hits++;
+            return slot;
+        }
+        return -1;
+    }
+
+    public int getScore(int slot)
+    {
+        return (int) data[slot];
+    }
+
+    public int getDepth(int slot)
+    {
+        return (int) (data[slot] >>> 32) & 0xFF;
+    }
+
+    public int getBound(int slot)
+    {
+        return (int) (data[slot] >>> 40) & 0x3;
+    }
+
+    /**
+     * @param slot - a slot returned by probe()
+     * @return - the index into GameState.DELTAS of the best move found from this position, or NO_MOVE.
+     */
+    public int getBestMove(int slot)
+    {
+        return ((int) (data[slot] >>> 42) & 0x7) - 1;
+    }
+
+    /**
+     * records what the search found out about a position.
+     * @param key - the position's Zobrist key
+     * @param depth - how many steps were left to look (0 - 255)
+     * @param bound - EXACT, LOWER_BOUND or UPPER_BOUND
+     * @param score - the score (or bound) found
+     * @param bestMove - the index into GameState.DELTAS of the best move found, or NO_MOVE
+     */
+    public void store(long key, int depth, int bound, int score, int bestMove)
+    {
+        stores++;
+        long packed = (score & 0xFFFFFFFFL) | (long) (depth & 0xFF) << 32 | (long) bound << 40
+                | (long) (bestMove + 1) << 42 | IN_USE;
+        int slot = bucketOf(key);
+        boolean deepSlotInUse = (data[slot] & IN_USE) != 0;
+        if (!deepSlotInUse || keys[slot] == key || depth >= getDepth(slot))
+        {
+            // the deep slot's old entry (if it was a different position) moves down to the always-replace slot.
+            if (deepSlotInUse && keys[slot] != key)
+                write(slot + 1, keys[slot], data[slot]);
+            else if (keys[slot + 1] == key)
+                data[slot + 1] = 0; // don't keep a stale second copy of this position.
+            keys[slot] = key;
+            data[slot] = packed;
+        }
+        else
+            write(slot + 1, key, packed);
+    }
+
+    /**
+     * empties the table and zeroes the statistics.
+     */
+    public void clear()
+    {
+        java.util.Arrays.fill(keys, 0);
+        java.util.Arrays.fill(data, 0);
+        probes = hits = collisions = stores = 0;
+    }
+
+    /**
+     * @return - how many positions the table can hold.
+     */
+    public int getCapacity()
+    {
+        return keys.length;
+    }
+
+    public long getProbes()
+    {
+        return probes;
+    }
+
+    public long getHits()
+    {
+        return hits;
+    }
+
+    /**
+     * @return - the fraction of probes that found their position (0 if there haven't been any probes).
+     */
+    public double getHitRate()
+    {
+        return probes == 0 ? 0 : (double) hits / probes;
+    }
+
+    /**
+     * @return - how many times a position was pushed out of the table to make room for a different one that landed
+     * in the same bucket. If this is large compared to getStores(), the table is too small.
+     */
+    public long getCollisions()
+    {
+        return collisions;
+    }
+
+    public long getStores()
+    {
+        return stores;
+    }
+
+    private void write(int slot, long key, long packed)
+    {
+        if ((data[slot] & IN_USE) != 0 && keys[slot] != key)
+            collisions++;
+        keys[slot] = key;
+        data[slot] = packed;
+    }
+
+    private int bucketOf(long key)
+    {
+        // the low bits of a Zobrist key are as random as any, but mix in the high half so both halves count.
+        return (int) ((key ^ (key >>> 32)) & bucketMask) << 1;
+    }
+}
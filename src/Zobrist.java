@@ -0,0 +1,63 @@
+/**
+ * Random-looking 64-bit numbers for each piece of a GameState, which XOR together into a "Zobrist key" for the whole
+ * position. Changing one thing about the position (a player steps, a cell is gobbled, the turn advances) only needs
+ * that one piece XORed out and its replacement XORed in, so GameState can keep its key up to date as it makes and
+ * undoes moves.
+ * *
+ * Instead of keeping big tables of random numbers, each piece's number is made by scrambling a description of that
+ * piece with the "SplitMix64" mixing function - it is just as random for our purposes and costs no memory, however big
+ * the board gets.
+ */
+public final class Zobrist
+{
+    // different starting points for the different kinds of pieces, so that (say) cell 3 and turn 3 don't share a key.
+    private static final long POSITION_SALT = 0x9E3779B97F4A7C15L;
+    private static final long CELL_SALT = 0xC2B2AE3D27D4EB4FL;
+    private static final long TURN_SALT = 0x165667B19E3779F9L;
+
+    private Zobrist()
+    {
+    }
+
+    /**
+     * @param whichPlayer - HUMAN or COMPUTER
+     * @param cellIndex - row * number of columns + col
+     * @return - the key for that player standing in that cell.
+     */
+    public static long positionKey(int whichPlayer, int cellIndex)
+    {
+        return mix(POSITION_SALT + ((long) cellIndex << 1 | whichPlayer));
+    }
+
+    /**
+     * @param cellIndex - row * number of columns + col
+     * @param startValue - the number that cell had at turn zero
+     * @return - the key for that cell not having been gobbled up yet.
+     */
+    public static long cellKey(int cellIndex, int startValue)
+    {
+        return mix(CELL_SALT + ((long) cellIndex << 32 | startValue));
+    }
+
+    /**
+     * @param turn - how many moves have been made
+     * @return - the key for it being that turn (which also tells us whose move it is, and how far the numbers have
+     * dropped).
+     */
+    public static long turnKey(int turn)
+    {
+        return mix(TURN_SALT + turn);
+    }
+
+    /**
+     * the SplitMix64 finalizer: every bit of the input affects every bit of the output.
+     * @param z - the number to scramble
+     * @return - the scrambled number
+     */
+    private static long mix(long z)
+    {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}